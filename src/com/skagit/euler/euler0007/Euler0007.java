@@ -2,15 +2,17 @@ package com.skagit.euler.euler0007;
 
 import java.util.BitSet;
 
-public class Euler0007 {
+import com.skagit.euler.runner.Problem;
+
+public class Euler0007 implements Problem {
 
 	static private int _N = 10001;
 
-	static int getNthPrime(final int n) {
+	public static int getNthPrime(final int n) {
 		/** From wiki, we get that a good guess for the nth prime is n*ln(n). */
 		for (int k = (int) (n / Math.log(n));; k *= 2) {
 			final BitSet bitSet = getPrimesUpTo(k);
-			if (bitSet.cardinality() >= _N) {
+			if (bitSet.cardinality() >= n) {
 				int prime = bitSet.nextSetBit(0);
 				for (int j = 1; j < n; prime = bitSet.nextSetBit(prime + 1), ++j) {
 				}
@@ -33,6 +35,25 @@ public class Euler0007 {
 		return primes;
 	}
 
+	@Override
+	public String[] getParamNames() {
+		return new String[] {
+				"n"
+		};
+	}
+
+	@Override
+	public long[] getDefaultParams() {
+		return new long[] {
+				_N
+		};
+	}
+
+	@Override
+	public long solve(final long[] params) {
+		return getNthPrime((int) params[0]);
+	}
+
 	public static void main(final String[] args) {
 		final int answer = getNthPrime(_N);
 		System.out.printf("%d-th prime is %d.", _N, answer);
@@ -2,28 +2,55 @@ package com.skagit.euler.euler0781;
 
 import java.util.Arrays;
 
-public class Euler0781 {
-	final static int _Modulo = 1000000007;
+import com.skagit.euler.runner.Problem;
+import com.skagit.euler.util.ModArith;
+
+public class Euler0781 implements Problem {
+	public final static int _Modulo = 1000000007;
+	final static int _NStar = 50000;
 
 	public static long feynmanF(final int nStar) {
+		return feynmanF(nStar, ModArith.getDefault(_Modulo));
+	}
+
+	public static long feynmanF(final int nStar, final ModArith mod) {
 		int[] alpha = new int[nStar];
-		Arrays.fill(alpha, 1);
+		Arrays.fill(alpha, (int) mod.one());
 
 		for (int alphaN = nStar; alphaN > 2; alphaN -= 2) {
 			final int bravoN = alphaN - 2;
 			final int[] bravo = new int[bravoN];
-			int cum = 0;
+			long cum = 0;
 			for (int i = 0; i < bravoN; ++i) {
-				cum = (cum + alpha[i]) % _Modulo;
-				bravo[i] = (int) ((alpha[i + 2] * (i + 2L) + cum) % _Modulo);
+				cum = mod.add(cum, alpha[i]);
+				bravo[i] = (int) mod.reduce(mod.mulAddSmall(alpha[i + 2], i + 2L, cum));
 			}
 			alpha = bravo;
 		}
-		return alpha[1];
+		return mod.fromForm(alpha[1]);
+	}
+
+	@Override
+	public String[] getParamNames() {
+		return new String[] {
+				"nStar"
+		};
+	}
+
+	@Override
+	public long[] getDefaultParams() {
+		return new long[] {
+				_NStar
+		};
+	}
+
+	@Override
+	public long solve(final long[] params) {
+		return feynmanF((int) params[0]);
 	}
 
 	public static void main(final String[] args) {
-		final int nStar = 50000;
+		final int nStar = _NStar;
 		final long millis = System.currentTimeMillis();
 		System.out.printf("nStar[%d] f[%d]", nStar, feynmanF(nStar));
 		System.out.printf(".\tTook %d millis.", System.currentTimeMillis() - millis);
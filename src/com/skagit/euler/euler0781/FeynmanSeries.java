@@ -0,0 +1,220 @@
+package com.skagit.euler.euler0781;
+
+import com.skagit.euler.poly.PolyMod;
+import com.skagit.euler.runner.Problem;
+import com.skagit.euler.util.ModArith;
+
+/**
+ * All of F(2), F(4), ..., F(nStar) at once, from a generating function instead
+ * of one O(nStar^2) DP per nStar.
+ *
+ * With f[m] = F(2m + 2) and G(y) = sum f[m] y^m,
+ *
+ * <pre>
+ * G = 1 + (5y - y^2) G + 2y^2 G' + y^2 (1 - y) G^2.
+ * </pre>
+ *
+ * Derivation. Let a_t be alpha after t passes, with no cut-off (the cut-off
+ * never reaches a_t[1]), and A_t(x) = sum a_t[i] x^i. Euler0781's pass is
+ *
+ * <pre>
+ * A_{t+1} = A_t / (1 - x) + (A_t' - a_t[1]) / x,   A_0 = 1 / (1 - x),   f[t] = a_t[1].
+ * </pre>
+ *
+ * In s = 1 / (1 - x), where d/dx = s^2 d/ds, A_0 = s and each pass keeps A_t a
+ * polynomial in s with f[t] = dA_t/ds at s = 1. Summing y^t A_t into W(s, y),
+ *
+ * <pre>
+ * y s^3 W_s = (s - 1)(1 - ys) W - s (s - 1) + ys G,
+ * (mu W)_s = e^(1/s) E (G - (s - 1) / y) / s,   mu = s e^(1/s) E,   E = e^(phi(s) / y),   phi = 1/s - 1/(2s^2).
+ * </pre>
+ *
+ * phi peaks at s = 1. For W to be a power series in y on both sides of the
+ * peak, the right side has to integrate to 0 across it. With m_k the Laplace
+ * expansion at s = 1 of the integral of s^-k e^(1/s) E, that is y G m_1 = m_0 -
+ * m_1. Integrating (s^-k e^(1/s) E)_s by parts gives m_(k+3) = (1 + y) m_(k+2)
+ * + k y m_(k+1), so m_2 = (1 + y) m_1 - y m_0 and m_3 = (1 + y) m_2, and
+ * differentiating under the integral gives y^2 m_k' = m_(k+2) / 2 - m_(k+1).
+ * Putting those into the derivative of m_0 / m_1 = 1 + yG gives the equation
+ * above. The balance condition is a formal, asymptotic step, not a proof in
+ * Z[[y]]; FeynmanSeriesTest checks every value up to nStar 20000 against the
+ * DP. Comparing coefficients of y^m,
+ *
+ * <pre>
+ * f[m] = [m == 0] + (2m + 3) f[m-1] - f[m-2] + h[m] - h[m-1],   h[m] = [y^(m-2)] G^2.
+ * </pre>
+ *
+ * h[m] needs only f[0..m-2], so we fill in G^2 with a relaxed (online)
+ * convolution: a divide and conquer on m that, once the left half of a block
+ * is known, adds its share of G^2 to the right half with one PolyMod product.
+ * That is O(nStar log^2 nStar). The y^2 G' term rules out the usual Newton
+ * iteration with log/exp, which would save the last log. The products run on
+ * every core (see PolyMod); the recursion itself is serial, since each half of
+ * a block needs the half before it.
+ */
+public class FeynmanSeries implements Problem {
+	final static int _NStar = 50000;
+	/** Blocks this small are done directly. */
+	final static int _NaiveLen = 32;
+
+	final PolyMod _polyMod;
+	final ModArith _mod;
+	/** In _mod's form. */
+	final long[] _f, _h;
+	final int _nTerms;
+
+	private FeynmanSeries(final int nTerms, final ModArith mod, final boolean parallel) {
+		_polyMod = new PolyMod(mod, parallel);
+		_mod = mod;
+		_nTerms = nTerms;
+		_f = new long[nTerms];
+		_h = new long[nTerms];
+	}
+
+	public FeynmanSeries() {
+		this(0, ModArith.getDefault(Euler0781._Modulo), /* parallel= */false);
+	}
+
+	/** f[m] = F(2m + 2) for 2m + 2 <= nStar. nStar must be even and >= 2. */
+	public static long[] feynmanFs(final int nStar) {
+		return feynmanFs(nStar, ModArith.getDefault(Euler0781._Modulo), /* parallel= */true);
+	}
+
+	public static long[] feynmanFs(final int nStar, final ModArith mod, final boolean parallel) {
+		if (nStar < 2 || nStar % 2 != 0) {
+			throw new IllegalArgumentException(String.format("nStar[%d] must be even and at least 2.", nStar));
+		}
+		final int nTerms = nStar / 2;
+		final FeynmanSeries series = new FeynmanSeries(nTerms, mod, parallel);
+		int size = 1;
+		while (size < nTerms) {
+			size <<= 1;
+		}
+		/** The top-level product, f[0..size/2) squared, is the longest. */
+		final int maxLen = series._polyMod.getMaxLen();
+		if (size > maxLen) {
+			throw new IllegalArgumentException(String.format(
+					"nStar[%d] needs products of %d coefficients; PolyMod stops at %d, so nStar <= %d.", nStar, size,
+					maxLen, 2L * maxLen));
+		}
+		series.solve(0, size);
+		final long[] f = series._f;
+		for (int m = 0; m < nTerms; ++m) {
+			f[m] = mod.fromForm(f[m]);
+		}
+		return f;
+	}
+
+	public static long feynmanF(final int nStar) {
+		return feynmanFs(nStar)[nStar / 2 - 1];
+	}
+
+	/** On entry, _h[m] for m in [lo, hi) has every pair that straddles the block. */
+	private void solve(final int lo, final int hi) {
+		if (lo >= _nTerms) {
+			return;
+		}
+		if (hi - lo <= _NaiveLen) {
+			solveNaive(lo, Math.min(hi, _nTerms));
+			return;
+		}
+		final int mid = (lo + hi) >>> 1;
+		solve(lo, mid);
+		final int end = Math.min(hi, _nTerms);
+		if (mid >= end) {
+			return;
+		}
+		/**
+		 * Pairs i >= j with i in [lo, mid) and i + j + 2 in [mid, end). If lo is 0,
+		 * that is every pair below mid. Otherwise hi - lo <= lo, so j < lo and each
+		 * pair is counted twice.
+		 */
+		final long[] product;
+		final int shift;
+		if (lo == 0) {
+			final long[] left = slice(_f, 0, mid);
+			product = _polyMod.multiply(left, left, end - 2);
+			shift = 2;
+		} else {
+			product = _polyMod.multiply(slice(_f, lo, mid), slice(_f, 0, hi - lo), end - lo - 2);
+			shift = lo + 2;
+		}
+		final long factor = lo == 0 ? 1 : 2;
+		for (int m = mid; m < end; ++m) {
+			_h[m] = _mod.mulAddSmall(product[m - shift], factor, _h[m]);
+		}
+		solve(mid, hi);
+	}
+
+	private void solveNaive(final int lo, final int end) {
+		for (int m = lo; m < end; ++m) {
+			long fm = m == 0 ? _mod.one() : 0;
+			if (m >= 1) {
+				fm = _mod.mulAddSmall(_f[m - 1], 2L * m + 3, fm);
+				fm = _mod.sub(fm, _h[m - 1]);
+			}
+			if (m >= 2) {
+				fm = _mod.sub(fm, _f[m - 2]);
+			}
+			_f[m] = _mod.add(fm, _h[m]);
+			/** Pairs (m, j), j <= m, that land inside this block. */
+			for (int k = m + 2; k < end && k - 2 - m <= m; ++k) {
+				final int j = k - 2 - m;
+				_h[k] = _mod.mulAdd(_mod.mulAddSmall(_f[m], j == m ? 1 : 2, 0), _f[j], _h[k]);
+			}
+		}
+	}
+
+	private static long[] slice(final long[] a, final int from, final int to) {
+		final long[] b = new long[to - from];
+		System.arraycopy(a, from, b, 0, to - from);
+		return b;
+	}
+
+	@Override
+	public boolean isMultiThreaded() {
+		return true;
+	}
+
+	@Override
+	public String[] getParamNames() {
+		return new String[] {
+				"nStar"
+		};
+	}
+
+	@Override
+	public long[] getDefaultParams() {
+		return new long[] {
+				_NStar
+		};
+	}
+
+	@Override
+	public long solve(final long[] params) {
+		final int nStar = (int) params[0];
+		return feynmanFs(nStar)[nStar / 2 - 1];
+	}
+
+	public static void main(final String[] args) {
+		final int nStar = args.length > 0 ? Integer.parseInt(args[0]) : _NStar;
+		final int nCheck = args.length > 1 ? Integer.parseInt(args[1]) : 400;
+		long millis = System.currentTimeMillis();
+		final long[] f = feynmanFs(nStar);
+		System.out.printf("nStar[%d] f[%d].\tTook %d millis for all %d values.\n", nStar, f[f.length - 1],
+				System.currentTimeMillis() - millis, f.length);
+		int nBad = 0;
+		for (int n = 2; n <= nCheck && n <= nStar; n += 2) {
+			if (Euler0781.feynmanF(n) != f[n / 2 - 1]) {
+				System.out.printf("MISMATCH at n[%d].\n", n);
+				++nBad;
+			}
+		}
+		millis = System.currentTimeMillis();
+		final long f0 = Euler0781.feynmanF(nStar);
+		System.out.printf("Euler0781 f[%d].\tTook %d millis.\n", f0, System.currentTimeMillis() - millis);
+		if (f0 != f[f.length - 1] || nBad > 0) {
+			System.exit(1);
+		}
+	}
+}
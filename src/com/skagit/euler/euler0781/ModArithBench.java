@@ -0,0 +1,158 @@
+package com.skagit.euler.euler0781;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+import com.skagit.euler.euler0781.Obsolete.FeynmanF1;
+import com.skagit.euler.euler0781.Obsolete.FeynmanF2;
+import com.skagit.euler.util.ModArith;
+
+/**
+ * Times every ModArith backend on two raw loops and on the Feynman kernels.
+ * Each backend gets its own JVM; timing them in one JVM would make the calls
+ * megamorphic and penalize whichever ran last. The Euler0781Base row is
+ * Euler0781's loop as it was before ModArith, which ignores the backend; it is
+ * what the Euler0781 row has to beat.
+ *
+ * <pre>
+ * ModArithBench [nStar [nStarF1]]
+ * </pre>
+ */
+public class ModArithBench {
+	final static int _NStar = 20000;
+	final static int _NStarF1 = 600;
+	final static int _NOps = 50000000;
+	final static int _NWarmUps = 2;
+	final static int _NRuns = 5;
+
+	/** Residue-by-residue products, each depending on the last. */
+	static long mulChain(final ModArith mod) {
+		final long b = mod.toForm(123456789L);
+		final long c = mod.toForm(987654321L);
+		long x = mod.one();
+		for (int k = 0; k < _NOps; ++k) {
+			x = mod.mulAdd(x, b, c);
+		}
+		return mod.fromForm(x);
+	}
+
+	/** Residue-by-index products, as in fillInBravo. */
+	static long mulSmallSum(final ModArith mod) {
+		final long b = mod.toForm(123456789L);
+		long cum = 0;
+		for (int k = 0; k < _NOps; ++k) {
+			cum = mod.mulAddSmall(b, k, cum);
+		}
+		return mod.fromForm(cum);
+	}
+
+	/** Euler0781.feynmanF before ModArith: an int prefix sum and % everywhere. */
+	static long baselineFeynmanF(final int nStar) {
+		final int modulo = Euler0781._Modulo;
+		int[] alpha = new int[nStar];
+		Arrays.fill(alpha, 1);
+
+		for (int alphaN = nStar; alphaN > 2; alphaN -= 2) {
+			final int bravoN = alphaN - 2;
+			final int[] bravo = new int[bravoN];
+			int cum = 0;
+			for (int i = 0; i < bravoN; ++i) {
+				cum = (cum + alpha[i]) % modulo;
+				bravo[i] = (int) ((alpha[i + 2] * (i + 2L) + cum) % modulo);
+			}
+			alpha = bravo;
+		}
+		return alpha[1];
+	}
+
+	static void runChild(final ModArith mod, final int nStar, final int nStarF1) {
+		final Map<String, ToLongFunction<ModArith>> kernels = new LinkedHashMap<>();
+		kernels.put("mulChain", ModArithBench::mulChain);
+		kernels.put("mulSmallSum", ModArithBench::mulSmallSum);
+		kernels.put("Euler0781Base", m -> baselineFeynmanF(nStar));
+		kernels.put("Euler0781", m -> Euler0781.feynmanF(nStar, m));
+		kernels.put("FeynmanF2", m -> new FeynmanF2().compute(nStar, m));
+		kernels.put("FeynmanF1", m -> new FeynmanF1().compute(nStarF1, m));
+		kernels.put("FeynmanSeries", m -> {
+			final long[] f = FeynmanSeries.feynmanFs(nStar - nStar % 2, m, /* parallel= */false);
+			return f[f.length - 1];
+		});
+		for (final Map.Entry<String, ToLongFunction<ModArith>> entry : kernels.entrySet()) {
+			final ToLongFunction<ModArith> kernel = entry.getValue();
+			for (int k = 0; k < _NWarmUps; ++k) {
+				kernel.applyAsLong(mod);
+			}
+			final long[] nanos = new long[_NRuns];
+			long answer = 0;
+			for (int k = 0; k < _NRuns; ++k) {
+				final long nanos0 = System.nanoTime();
+				answer = kernel.applyAsLong(mod);
+				nanos[k] = System.nanoTime() - nanos0;
+			}
+			Arrays.sort(nanos);
+			System.out.printf("%s %d %d\n", entry.getKey(), nanos[_NRuns / 2], answer);
+		}
+	}
+
+	public static void main(final String[] args) throws IOException, InterruptedException {
+		final int nStar = args.length > 0 ? Integer.parseInt(args[0]) : _NStar;
+		final int nStarF1 = args.length > 1 ? Integer.parseInt(args[1]) : _NStarF1;
+		if (args.length > 2 && args[2].equals("child")) {
+			runChild(ModArith.getDefault(Euler0781._Modulo), nStar, nStarF1);
+			return;
+		}
+		final String java = new File(new File(System.getProperty("java.home"), "bin"), "java").getPath();
+		final String[] names = ModArith._Names;
+		/** kernel -> median millis per backend, and the answers, which must agree. */
+		final Map<String, double[]> millis = new LinkedHashMap<>();
+		final Map<String, Long> answers = new LinkedHashMap<>();
+		boolean mismatch = false;
+		for (int k = 0; k < names.length; ++k) {
+			final Process child = new ProcessBuilder(java, String.format("-D%s=%s", ModArith._PropertyName, names[k]),
+					"-cp", System.getProperty("java.class.path"), ModArithBench.class.getName(),
+					Integer.toString(nStar), Integer.toString(nStarF1), "child").redirectErrorStream(true).start();
+			try (BufferedReader in = new BufferedReader(new InputStreamReader(child.getInputStream()))) {
+				for (String line = in.readLine(); line != null; line = in.readLine()) {
+					final String[] fields = line.trim().split("\\s+");
+					if (fields.length != 3) {
+						System.out.println(line);
+						continue;
+					}
+					final String kernel = fields[0];
+					millis.computeIfAbsent(kernel, key -> new double[names.length])[k] = Long.parseLong(fields[1])
+							/ 1e6;
+					final long answer = Long.parseLong(fields[2]);
+					final Long oldAnswer = answers.putIfAbsent(kernel, answer);
+					if (oldAnswer != null && oldAnswer != answer) {
+						System.out.printf("%s: %s gave %d, %s gave %d.\n", kernel, names[0], oldAnswer, names[k], answer);
+						mismatch = true;
+					}
+				}
+			}
+			child.waitFor();
+		}
+		System.out.printf("nStar[%d] nStarF1[%d] nOps[%d], median millis of %d runs.\n", nStar, nStarF1, _NOps,
+				_NRuns);
+		System.out.printf("%-14s", "");
+		for (final String name : names) {
+			System.out.printf("%12s", name);
+		}
+		System.out.println();
+		for (final Map.Entry<String, double[]> entry : millis.entrySet()) {
+			System.out.printf("%-14s", entry.getKey());
+			for (final double m : entry.getValue()) {
+				System.out.printf("%12.1f", m);
+			}
+			System.out.println();
+		}
+		if (mismatch) {
+			System.exit(1);
+		}
+	}
+}
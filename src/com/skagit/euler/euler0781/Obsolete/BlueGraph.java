@@ -3,6 +3,8 @@ package com.skagit.euler.euler0781.Obsolete;
 import java.util.ArrayList;
 import java.util.BitSet;
 
+import com.skagit.euler.util.ModArith;
+
 public class BlueGraph {
 	final private int[] _blueVector;
 	final private BitSet[] _matchedNodesS;
@@ -11,8 +13,10 @@ public class BlueGraph {
 	final private int _nRedEdgesToPlace;
 	final private BitSet _connectedToPathComponents;
 	private int _nUnmatchedInConnectedToPath;
+	final private ModArith _mod;
 
-	public BlueGraph(final int[] blueVector) {
+	public BlueGraph(final int[] blueVector, final ModArith mod) {
+		_mod = mod;
 		_blueVector = compress(blueVector);
 		final int blueVectorLength = _blueVector.length;
 
@@ -61,7 +65,7 @@ public class BlueGraph {
 			return 0;
 		}
 		if (nRedEdgesPlaced == _nRedEdgesToPlace - 1) {
-			return 1;
+			return _mod.one();
 		}
 		final int[] pair = getNodeToMatch(/* afterPair= */null);
 
@@ -73,8 +77,8 @@ public class BlueGraph {
 			matchOrUnMatch(pair, pairX, /* match= */true);
 			final long thisNRedCompletions = recursiveGetNRedCompletions(nRedEdgesPlaced + 1);
 			matchOrUnMatch(pair, pairX, /* match= */false);
-			nRedCompletions = (nRedCompletions + (_nUnmatchedInConnectedToPath - 1) * thisNRedCompletions)
-					% FeynmanF1._Modulo;
+			nRedCompletions = _mod.mulAddSmall(thisNRedCompletions, _nUnmatchedInConnectedToPath - 1,
+					nRedCompletions);
 		}
 
 		/** Count ways to match pair into components that are not connectedToPath. */
@@ -91,7 +95,7 @@ public class BlueGraph {
 				matchOrUnMatch(pair, pairX, /* match= */true);
 				final long thisNRedCompletions = recursiveGetNRedCompletions(nRedEdgesPlaced + 1);
 				matchOrUnMatch(pair, pairX, /* match= */false);
-				nRedCompletions = (nRedCompletions + thisNRedCompletions) % FeynmanF1._Modulo;
+				nRedCompletions = _mod.add(nRedCompletions, thisNRedCompletions);
 			}
 		}
 		return nRedCompletions;
@@ -150,7 +154,7 @@ public class BlueGraph {
 	}
 
 	public long getNRedCompletions() {
-		return recursiveGetNRedCompletions(0);
+		return _mod.fromForm(recursiveGetNRedCompletions(0));
 	}
 
 	static int[] compress(final int[] array) {
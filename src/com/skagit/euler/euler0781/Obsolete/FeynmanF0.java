@@ -1,22 +1,28 @@
 package com.skagit.euler.euler0781.Obsolete;
 
+import com.skagit.euler.util.ModArith;
+
 public class FeynmanF0 extends FeynmanF1 {
 
 	@Override
-	public long compute(final int nStar) {
+	public long compute(final int nStar, final ModArith mod) {
 		long f = 0L;
 		final BlueVectorIt it = new BlueVectorIt(nStar);
 		while (it.hasNext()) {
 			final int[] blueVector = it.next();
-			final BlueGraph blueGraph = new BlueGraph(blueVector);
+			final BlueGraph blueGraph = new BlueGraph(blueVector, mod);
 			final long nRedCompletions = blueGraph.getNRedCompletions();
-			f = (f + nRedCompletions) % _Modulo;
+			f = mod.add(f, mod.toForm(nRedCompletions));
 			if (_Debug) {
 				System.out.printf("\n%s, NRedCompletions[%d], RunningTotal[%d]", //
 						BlueGraph.blueVectorToString(blueVector), nRedCompletions, f);
 			}
 		}
-		return (int) f;
+		return mod.fromForm(f);
 	}
 
+	@Override
+	protected int getDefaultNStar() {
+		return 12;
+	}
 }
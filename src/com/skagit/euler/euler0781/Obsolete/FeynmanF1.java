@@ -5,9 +5,11 @@ import java.io.IOException;
 import java.io.PrintStream;
 import java.util.Arrays;
 
+import com.skagit.euler.runner.Problem;
 import com.skagit.euler.util.GetStrings;
+import com.skagit.euler.util.ModArith;
 
-public class FeynmanF1 {
+public class FeynmanF1 implements Problem {
 
 	final static long _Modulo = 1000000007;
 	final static boolean _Debug = false;
@@ -19,18 +21,24 @@ public class FeynmanF1 {
 	final static boolean _Run2 = true;
 
 	public long compute(final int nStar) {
+		return compute(nStar, ModArith.getDefault(_Modulo));
+	}
+
+	public long compute(final int nStar, final ModArith mod) {
 		final long[] alpha = new long[nStar];
 		final long[] bravo = new long[nStar];
-		Arrays.fill(alpha, 1);
+		Arrays.fill(alpha, mod.one());
 		alpha[nStar - 2] = 0;
-		try (PrintStream debugPs = new PrintStream(_DebugFile)) {
-			return hammer(nStar, alpha, bravo, debugPs);
-		} catch (final IOException e) {
+		if (_Debug) {
+			try (PrintStream debugPs = new PrintStream(_DebugFile)) {
+				return hammer(nStar, alpha, bravo, mod, debugPs);
+			} catch (final IOException e) {
+			}
 		}
-		return hammer(nStar, alpha, bravo, /* debugPrintStream= */null);
+		return hammer(nStar, alpha, bravo, mod, /* debugPrintStream= */null);
 	}
 
-	private long hammer(final int nStar, long[] alpha, long bravo[], final PrintStream debugPs) {
+	private long hammer(final int nStar, long[] alpha, long bravo[], final ModArith mod, final PrintStream debugPs) {
 		final String startTimeString = GetStrings.getCurrentTimeString();
 		long oldMillis = System.currentTimeMillis();
 		int oldN = nStar;
@@ -51,22 +59,24 @@ public class FeynmanF1 {
 					oldMillis = System.currentTimeMillis();
 				}
 			}
-			fillInBravo(alphaN, alpha, bravo);
+			fillInBravo(alphaN, alpha, bravo, mod);
 			final long[] charlie = alpha;
 			alpha = bravo;
 			bravo = charlie;
 		}
-		final long f = alpha[1];
-		final String s = String.format("\n\nStarted at %s, finished at %s, f[%d].", //
-				startTimeString, GetStrings.getCurrentTimeString(), f);
-		System.out.print(s);
-		if (debugPs != null) {
-			debugPs.print(s);
+		final long f = mod.fromForm(alpha[1]);
+		if (_Debug) {
+			final String s = String.format("\n\nStarted at %s, finished at %s, f[%d].", //
+					startTimeString, GetStrings.getCurrentTimeString(), f);
+			System.out.print(s);
+			if (debugPs != null) {
+				debugPs.print(s);
+			}
 		}
 		return f;
 	}
 
-	protected void fillInBravo(final int alphaN, final long[] alpha, final long[] bravo) {
+	protected void fillInBravo(final int alphaN, final long[] alpha, final long[] bravo, final ModArith mod) {
 		final int bravoN = alphaN - 2;
 		Arrays.fill(bravo, 0, bravoN, 0L);
 		for (int k = 1; k <= alphaN; ++k) {
@@ -77,7 +87,7 @@ public class FeynmanF1 {
 			final long oldAlphaValue = alpha[k - 1];
 			if (k > 2) {
 				final int i = k - 3;
-				bravo[i] = (bravo[i] + oldAlphaValue * (k - 1)) % _Modulo;
+				bravo[i] = mod.mulAddSmall(oldAlphaValue, k - 1, bravo[i]);
 			}
 			final int maxCycleLen = alphaN - k;
 			for (int cycleLen = 2; cycleLen <= maxCycleLen; ++cycleLen) {
@@ -85,11 +95,34 @@ public class FeynmanF1 {
 					continue;
 				}
 				final int i = k + cycleLen - 3;
-				bravo[i] = (bravo[i] + oldAlphaValue) % _Modulo;
+				bravo[i] = mod.add(bravo[i], oldAlphaValue);
 			}
 		}
 	}
 
+	protected int getDefaultNStar() {
+		return 500;
+	}
+
+	@Override
+	public String[] getParamNames() {
+		return new String[] {
+				"nStar"
+		};
+	}
+
+	@Override
+	public long[] getDefaultParams() {
+		return new long[] {
+				getDefaultNStar()
+		};
+	}
+
+	@Override
+	public long solve(final long[] params) {
+		return compute((int) params[0]);
+	}
+
 	public static void main(final String[] args) {
 		final FeynmanF1 feynmanF0 = _Run0 ? new FeynmanF0() : null;
 		final FeynmanF1 feynmanF1 = _Run1 ? new FeynmanF1() : null;
@@ -1,14 +1,21 @@
 package com.skagit.euler.euler0781.Obsolete;
 
+import com.skagit.euler.util.ModArith;
+
 public class FeynmanF2 extends FeynmanF1 {
 
 	@Override
-	protected void fillInBravo(final int alphaN, final long[] alpha, final long[] bravo) {
+	protected void fillInBravo(final int alphaN, final long[] alpha, final long[] bravo, final ModArith mod) {
 		final int bravoN = alphaN - 2;
 		long cum = 0;
 		for (int i = 0; i < bravoN; ++i) {
-			cum = (cum + alpha[i]) % _Modulo;
-			bravo[i] = (int) ((alpha[i + 2] * (i + 2L) + cum) % _Modulo);
+			cum = mod.add(cum, alpha[i]);
+			bravo[i] = mod.mulAddSmall(alpha[i + 2], i + 2L, cum);
 		}
 	}
+
+	@Override
+	protected int getDefaultNStar() {
+		return 50000;
+	}
 }
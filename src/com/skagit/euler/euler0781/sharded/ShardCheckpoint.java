@@ -0,0 +1,98 @@
+package com.skagit.euler.euler0781.sharded;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * A shard's values as of the start of some pass (identified by alphaN). We keep
+ * the latest two; a crash can leave some shards one checkpoint ahead of the
+ * others, and the coordinator then rolls everybody back to the older one.
+ */
+class ShardCheckpoint {
+	final File _latestFile, _previousFile, _tmpFile;
+	final int _nStar, _nShards, _shardIndex;
+
+	ShardCheckpoint(final File dir, final int nStar, final int nShards, final int shardIndex) {
+		final String prefix = String.format("shard%d-of-%d", shardIndex, nShards);
+		_latestFile = new File(dir, prefix + ".latest.ckpt");
+		_previousFile = new File(dir, prefix + ".previous.ckpt");
+		_tmpFile = new File(dir, prefix + ".tmp.ckpt");
+		_nStar = nStar;
+		_nShards = nShards;
+		_shardIndex = shardIndex;
+	}
+
+	void write(final int alphaN, final int[] values) throws IOException {
+		try (DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(_tmpFile), 1 << 16))) {
+			out.writeInt(_nStar);
+			out.writeInt(_nShards);
+			out.writeInt(_shardIndex);
+			out.writeInt(alphaN);
+			out.writeInt(values.length);
+			for (final int value : values) {
+				out.writeInt(value);
+			}
+		}
+		if (_latestFile.exists()) {
+			Files.move(_latestFile.toPath(), _previousFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+		Files.move(_tmpFile.toPath(), _latestFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	/** Returns -1 if file is missing or belongs to some other run. */
+	int readAlphaN(final File file) {
+		try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+			return readHeader(in);
+		} catch (final IOException e) {
+			return -1;
+		}
+	}
+
+	/**
+	 * Fills in values from whichever file holds alphaN. If that is the previous
+	 * one, the latest is ahead of the other shards and we drop it.
+	 */
+	boolean read(final int alphaN, final int[] values) throws IOException {
+		for (final File file : new File[] {
+				_latestFile, _previousFile
+		}) {
+			try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16))) {
+				if (readHeader(in) != alphaN || in.readInt() != values.length) {
+					continue;
+				}
+				for (int k = 0; k < values.length; ++k) {
+					values[k] = in.readInt();
+				}
+			} catch (final IOException e) {
+				continue;
+			}
+			if (file == _previousFile) {
+				Files.move(_previousFile.toPath(), _latestFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+			return true;
+		}
+		return false;
+	}
+
+	private int readHeader(final DataInputStream in) throws IOException {
+		if (in.readInt() != _nStar || in.readInt() != _nShards || in.readInt() != _shardIndex) {
+			return -1;
+		}
+		return in.readInt();
+	}
+
+	void delete() {
+		_latestFile.delete();
+		_previousFile.delete();
+		_tmpFile.delete();
+	}
+}
@@ -0,0 +1,214 @@
+package com.skagit.euler.euler0781.sharded;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+import com.skagit.euler.euler0781.Euler0781;
+import com.skagit.euler.util.GetStrings;
+import com.skagit.euler.util.ModArith;
+
+/**
+ * Drives Euler0781's recurrence across nShards workers. Per pass, each active
+ * worker sends us its part of the prefix sum and its first two values; we send
+ * each one the sum of everything before it and the two values just past its
+ * end. That is all that crosses the wire.
+ *
+ * If any worker drops, we close every connection, wait for all nShards to come
+ * back, and restart from the newest checkpoint that every shard still has.
+ */
+public class ShardCoordinator implements AutoCloseable {
+	final static int _MaxRestarts = 10;
+	/** Same as ShardWorker._GiveUpMillis; a missing worker then costs a restart. */
+	final static long _AcceptMillis = 60000L;
+
+	final int _nStar, _nShards, _checkpointInterval;
+	final ServerSocketChannel _server;
+	final SocketChannel[] _channels;
+	final long[][] _replies;
+	/** Must match the workers'; checked in every hello. */
+	final ModArith _mod;
+
+	public ShardCoordinator(final int nStar, final int nShards, final int checkpointInterval, final int port)
+			throws IOException {
+		if (nShards <= 0 || checkpointInterval <= 0) {
+			throw new IllegalArgumentException(String.format("nShards[%d] and checkpointInterval[%d] must be positive.",
+					nShards, checkpointInterval));
+		}
+		if (nStar < 2 || nStar / nShards < 2) {
+			throw new IllegalArgumentException(
+					String.format("nStar[%d] must give every one of nShards[%d] at least 2 values.", nStar, nShards));
+		}
+		_nStar = nStar;
+		_nShards = nShards;
+		_checkpointInterval = checkpointInterval;
+		_server = ServerSocketChannel.open();
+		_server.bind(new InetSocketAddress("localhost", port));
+		_channels = new SocketChannel[nShards];
+		_replies = new long[nShards][];
+		_mod = ModArith.getDefault(Euler0781._Modulo);
+	}
+
+	public int getPort() {
+		return _server.socket().getLocalPort();
+	}
+
+	public long compute() throws IOException {
+		for (int nRestarts = 0;; ++nRestarts) {
+			try {
+				final int alphaN = connectAll();
+				return hammer(alphaN);
+			} catch (final IOException e) {
+				System.out.printf("%s lost a worker (%s); reconnecting.\n", GetStrings.getCurrentTimeString(), e);
+				closeAll();
+				if (nRestarts == _MaxRestarts) {
+					throw e;
+				}
+			}
+		}
+	}
+
+	/** Waits for every shard to say hello; returns the alphaN to resume from. */
+	private int connectAll() throws IOException {
+		final int[] latest = new int[_nShards];
+		final int[] previous = new int[_nShards];
+		int nConnected = 0;
+		final long deadline = System.currentTimeMillis() + _AcceptMillis;
+		while (nConnected < _nShards) {
+			final long millisLeft = deadline - System.currentTimeMillis();
+			if (millisLeft <= 0) {
+				throw new SocketTimeoutException(String.format("Only %d of %d workers connected.", nConnected, _nShards));
+			}
+			/** The channel's own accept ignores SO_TIMEOUT; its socket adaptor's does not. */
+			_server.socket().setSoTimeout((int) millisLeft);
+			final SocketChannel channel = _server.socket().accept().getChannel();
+			channel.socket().setTcpNoDelay(true);
+			/** Nor may one that connects and never says hello; that costs a restart. */
+			final long[] hello;
+			try {
+				channel.socket().setSoTimeout((int) Math.max(1L, deadline - System.currentTimeMillis()));
+				hello = ShardMessages.read(channel.socket().getInputStream(), ShardMessages._HelloLen);
+				channel.socket().setSoTimeout(0);
+			} catch (final IOException e) {
+				channel.close();
+				throw e;
+			}
+			final int shardIndex = (int) hello[0];
+			if (hello[1] != _nStar || hello[2] != _nShards || shardIndex < 0 || shardIndex >= _nShards) {
+				channel.close();
+				continue;
+			}
+			final int modArithIndex = ShardMessages.getModArithIndex(_mod);
+			if (hello[5] != modArithIndex) {
+				channel.close();
+				final String workerName = hello[5] >= 0 && hello[5] < ModArith._Names.length
+						? ModArith._Names[(int) hello[5]]
+						: Long.toString(hello[5]);
+				/** Not an IOException: reconnecting cannot fix it. */
+				throw new IllegalStateException(String.format("Shard %d uses %s %s, but we use %s.", shardIndex,
+						ModArith._PropertyName, workerName, _mod.getName()));
+			}
+			if (_channels[shardIndex] == null) {
+				++nConnected;
+			} else {
+				_channels[shardIndex].close();
+			}
+			_channels[shardIndex] = channel;
+			latest[shardIndex] = (int) hello[3];
+			previous[shardIndex] = (int) hello[4];
+		}
+
+		/** Smallest alphaN (most progress) that every shard has. */
+		int alphaN = _nStar;
+		for (final int candidate : new int[] {
+				latest[0], previous[0]
+		}) {
+			if (candidate <= 0 || candidate >= alphaN) {
+				continue;
+			}
+			boolean all = true;
+			for (int k = 1; k < _nShards && all; ++k) {
+				all = latest[k] == candidate || previous[k] == candidate;
+			}
+			if (all) {
+				alphaN = candidate;
+			}
+		}
+		if (alphaN < _nStar) {
+			System.out.printf("%s resuming from checkpoint alphaN[%d].\n", GetStrings.getCurrentTimeString(), alphaN);
+		}
+		for (int k = 0; k < _nShards; ++k) {
+			ShardMessages.write(_channels[k], ShardMessages._OpLoad, alphaN, 0, 0, 0, 0);
+		}
+		for (int k = 0; k < _nShards; ++k) {
+			_replies[k] = ShardMessages.read(_channels[k], ShardMessages._ReplyLen);
+		}
+		return alphaN;
+	}
+
+	private long hammer(int alphaN) throws IOException {
+		for (int nPasses = 1; alphaN > 2; alphaN -= 2, ++nPasses) {
+			final int bravoN = alphaN - 2;
+			final boolean checkpoint = nPasses % _checkpointInterval == 0;
+			int nSent = 0;
+			long offset = 0;
+			for (int k = 0; k < _nShards; ++k) {
+				/**
+				 * Shards past bravoN have nothing to do, but still take part in checkpoint
+				 * passes so that every shard has every checkpoint.
+				 */
+				if (!checkpoint && ShardMessages.getLo(_nStar, _nShards, k) >= bravoN) {
+					break;
+				}
+				final long[] halo = k + 1 < _nShards ? _replies[k + 1] : _replies[k];
+				ShardMessages.write(_channels[k], ShardMessages._OpPass, alphaN, offset, halo[1], halo[2],
+						checkpoint ? 1 : 0);
+				offset = _mod.add(offset, _replies[k][0]);
+				++nSent;
+			}
+			for (int k = 0; k < nSent; ++k) {
+				_replies[k] = ShardMessages.read(_channels[k], ShardMessages._ReplyLen);
+			}
+		}
+		/** alpha[1] lives in shard 0, which is at least 2 long. */
+		final long f = _mod.fromForm(_replies[0][2]);
+		for (int k = 0; k < _nShards; ++k) {
+			ShardMessages.write(_channels[k], ShardMessages._OpStop, 0, 0, 0, 0, 0);
+		}
+		closeAll();
+		return f;
+	}
+
+	private void closeAll() {
+		for (int k = 0; k < _nShards; ++k) {
+			if (_channels[k] != null) {
+				try {
+					_channels[k].close();
+				} catch (final IOException e) {
+				}
+				_channels[k] = null;
+			}
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		closeAll();
+		_server.close();
+	}
+
+	public static void main(final String[] args) throws IOException {
+		if (args.length != 4) {
+			System.err.println("Usage: ShardCoordinator port nStar nShards checkpointInterval");
+			System.exit(1);
+		}
+		try (ShardCoordinator coordinator = new ShardCoordinator(Integer.parseInt(args[1]),
+				Integer.parseInt(args[2]), Integer.parseInt(args[3]), Integer.parseInt(args[0]))) {
+			final long millis = System.currentTimeMillis();
+			System.out.printf("nStar[%d] f[%d]", coordinator._nStar, coordinator.compute());
+			System.out.printf(".\tTook %d millis.", System.currentTimeMillis() - millis);
+		}
+	}
+}
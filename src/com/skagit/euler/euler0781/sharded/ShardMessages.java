@@ -0,0 +1,84 @@
+package com.skagit.euler.euler0781.sharded;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+
+import com.skagit.euler.util.ModArith;
+
+/**
+ * The wire protocol. Every message is a fixed number of longs; requests from
+ * the coordinator start with an opcode.
+ *
+ * <pre>
+ * worker hello:  [shardIndex, nStar, nShards, latestCkptAlphaN, previousCkptAlphaN, modArith]
+ * LOAD:          [OP_LOAD, alphaN, 0, 0, 0, 0]
+ * PASS:          [OP_PASS, alphaN, offset, halo0, halo1, checkpoint]
+ * STOP:          [OP_STOP, 0, 0, 0, 0, 0]
+ * reply:         [localSum, first0, first1]
+ * </pre>
+ *
+ * LOAD and PASS both reply with the state the shard is left in: the sum of
+ * its part of the prefix for the next pass, and its first two values, which
+ * are the halo of the shard before it.
+ *
+ * modArith is the index of the worker's ModArith in ModArith._Names; values
+ * cross the wire in that backend's form, so the coordinator's must match.
+ */
+class ShardMessages {
+	final static long _OpLoad = 1;
+	final static long _OpPass = 2;
+	final static long _OpStop = 3;
+
+	final static int _HelloLen = 6;
+	final static int _RequestLen = 6;
+	final static int _ReplyLen = 3;
+
+	static void write(final SocketChannel channel, final long... values) throws IOException {
+		final ByteBuffer buffer = ByteBuffer.allocate(values.length * Long.BYTES);
+		for (final long value : values) {
+			buffer.putLong(value);
+		}
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+
+	static long[] read(final SocketChannel channel, final int n) throws IOException {
+		final ByteBuffer buffer = ByteBuffer.allocate(n * Long.BYTES);
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer) < 0) {
+				throw new EOFException();
+			}
+		}
+		buffer.flip();
+		final long[] values = new long[n];
+		for (int k = 0; k < n; ++k) {
+			values[k] = buffer.getLong();
+		}
+		return values;
+	}
+
+	/** For a socket adaptor's stream, which honors SO_TIMEOUT where the channel does not. */
+	static long[] read(final InputStream in, final int n) throws IOException {
+		final DataInputStream dataIn = new DataInputStream(in);
+		final long[] values = new long[n];
+		for (int k = 0; k < n; ++k) {
+			values[k] = dataIn.readLong();
+		}
+		return values;
+	}
+
+	static int getModArithIndex(final ModArith mod) {
+		return Arrays.asList(ModArith._Names).indexOf(mod.getName());
+	}
+
+	static int getLo(final int nStar, final int nShards, final int shardIndex) {
+		return (int) ((long) nStar * shardIndex / nShards);
+	}
+}
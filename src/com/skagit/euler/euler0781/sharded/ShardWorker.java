@@ -0,0 +1,133 @@
+package com.skagit.euler.euler0781.sharded;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+
+import com.skagit.euler.euler0781.Euler0781;
+import com.skagit.euler.util.ModArith;
+
+/**
+ * Holds alpha[lo..hi) and runs Euler0781's recurrence on it in place. If the
+ * coordinator goes away without saying STOP, we reconnect and let it tell us
+ * which checkpoint to resume from.
+ */
+public class ShardWorker {
+	final static long _RetryMillis = 200L;
+	final static long _GiveUpMillis = 60000L;
+
+	final int _nStar, _nShards, _shardIndex, _lo, _hi;
+	final int[] _alpha;
+	final ShardCheckpoint _checkpoint;
+	final ModArith _mod;
+
+	public ShardWorker(final int nStar, final int nShards, final int shardIndex, final File checkpointDir) {
+		_nStar = nStar;
+		_nShards = nShards;
+		_shardIndex = shardIndex;
+		_lo = ShardMessages.getLo(nStar, nShards, shardIndex);
+		_hi = ShardMessages.getLo(nStar, nShards, shardIndex + 1);
+		_alpha = new int[_hi - _lo];
+		_checkpoint = new ShardCheckpoint(checkpointDir, nStar, nShards, shardIndex);
+		_mod = ModArith.getDefault(Euler0781._Modulo);
+	}
+
+	public void run(final InetSocketAddress coordinator) throws IOException, InterruptedException {
+		long lastConnectedMillis = System.currentTimeMillis();
+		while (true) {
+			final SocketChannel channel;
+			try {
+				channel = SocketChannel.open(coordinator);
+			} catch (final IOException e) {
+				if (System.currentTimeMillis() - lastConnectedMillis > _GiveUpMillis) {
+					throw e;
+				}
+				Thread.sleep(_RetryMillis);
+				continue;
+			}
+			try (channel) {
+				channel.socket().setTcpNoDelay(true);
+				if (serve(channel)) {
+					return;
+				}
+			} catch (final IOException e) {
+				/** Coordinator is restarting; fall through and reconnect. */
+			}
+			lastConnectedMillis = System.currentTimeMillis();
+		}
+	}
+
+	/** Returns true on STOP. */
+	private boolean serve(final SocketChannel channel) throws IOException {
+		ShardMessages.write(channel, _shardIndex, _nStar, _nShards, //
+				_checkpoint.readAlphaN(_checkpoint._latestFile), _checkpoint.readAlphaN(_checkpoint._previousFile),
+				ShardMessages.getModArithIndex(_mod));
+		while (true) {
+			final long[] request = ShardMessages.read(channel, ShardMessages._RequestLen);
+			final long op = request[0];
+			final int alphaN = (int) request[1];
+			if (op == ShardMessages._OpStop) {
+				_checkpoint.delete();
+				return true;
+			}
+			if (op == ShardMessages._OpLoad) {
+				if (alphaN == _nStar) {
+					Arrays.fill(_alpha, (int) _mod.one());
+				} else if (!_checkpoint.read(alphaN, _alpha)) {
+					throw new IOException(String.format("Shard %d has no checkpoint for alphaN[%d].", _shardIndex, alphaN));
+				}
+				ShardMessages.write(channel, getReply(alphaN));
+			} else if (op == ShardMessages._OpPass) {
+				fillInBravo(alphaN, request[2], (int) request[3], (int) request[4]);
+				if (request[5] != 0) {
+					_checkpoint.write(alphaN - 2, _alpha);
+				}
+				ShardMessages.write(channel, getReply(alphaN - 2));
+			} else {
+				throw new IOException(String.format("Unknown op %d.", op));
+			}
+		}
+	}
+
+	/**
+	 * Same as Euler0781.feynmanF's inner loop, in place: alpha[i] is dead once it
+	 * is in cum, and alpha[i + 2] is still unchanged when we need it.
+	 */
+	private void fillInBravo(final int alphaN, final long offset, final int halo0, final int halo1) {
+		final int bravoN = alphaN - 2;
+		final int end = Math.min(_hi, bravoN);
+		long cum = offset;
+		for (int i = _lo; i < end; ++i) {
+			final int k = i - _lo;
+			cum = _mod.add(cum, _alpha[k]);
+			final int i2 = i + 2;
+			final long next = i2 < _hi ? _alpha[k + 2] : (i2 == _hi ? halo0 : halo1);
+			_alpha[k] = (int) _mod.reduce(_mod.mulAddSmall(next, i2, cum));
+		}
+	}
+
+	/** Our part of the prefix sum for the pass that starts at alphaN, and the halo. */
+	private long[] getReply(final int alphaN) {
+		final int end = Math.min(_hi, alphaN - 2);
+		long localSum = 0;
+		for (int i = _lo; i < end; ++i) {
+			localSum = _mod.add(localSum, _alpha[i - _lo]);
+		}
+		return new long[] {
+				_mod.reduce(localSum), _alpha[0], _alpha[1]
+		};
+	}
+
+	public static void main(final String[] args) throws IOException, InterruptedException {
+		if (args.length != 6) {
+			System.err.println("Usage: ShardWorker host port nStar nShards shardIndex checkpointDir");
+			System.exit(1);
+		}
+		final InetSocketAddress coordinator = new InetSocketAddress(args[0], Integer.parseInt(args[1]));
+		final ShardWorker worker = new ShardWorker(Integer.parseInt(args[2]), Integer.parseInt(args[3]),
+				Integer.parseInt(args[4]), new File(args[5]));
+		worker.run(coordinator);
+	}
+}
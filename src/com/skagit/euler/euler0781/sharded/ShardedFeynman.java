@@ -0,0 +1,96 @@
+package com.skagit.euler.euler0781.sharded;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.skagit.euler.euler0781.Euler0781;
+import com.skagit.euler.util.GetStrings;
+import com.skagit.euler.util.ModArith;
+
+/**
+ * Runs a coordinator here and nShards worker JVMs on localhost, and checks the
+ * answer against Euler0781.feynmanF. If killMillis is positive, worker 0 is
+ * killed after that long and started again, so that the run has to recover from
+ * the checkpoints.
+ */
+public class ShardedFeynman {
+	final static int _NStar = 20000;
+	final static int _NShards = 4;
+	final static int _CheckpointInterval = 256;
+
+	static Process startWorker(final int port, final int nStar, final int nShards, final int shardIndex,
+			final File checkpointDir) throws IOException {
+		final String java = new File(new File(System.getProperty("java.home"), "bin"), "java").getPath();
+		final String modArith = String.format("-D%s=%s", ModArith._PropertyName,
+				System.getProperty(ModArith._PropertyName, ModArith._DefaultName));
+		return new ProcessBuilder(java, modArith, "-cp", System.getProperty("java.class.path"),
+				ShardWorker.class.getName(), "localhost", Integer.toString(port), Integer.toString(nStar), Integer.toString(nShards),
+				Integer.toString(shardIndex), checkpointDir.getPath()).inheritIO().start();
+	}
+
+	public static long compute(final int nStar, final int nShards, final int checkpointInterval,
+			final long killMillis) throws IOException, InterruptedException {
+		final File checkpointDir = Files.createTempDirectory("feynman-shards").toFile();
+		/** The killer thread replaces worker 0, so the cleanup has to see its write. */
+		final AtomicReferenceArray<Process> workers = new AtomicReferenceArray<>(nShards);
+		Thread killer = null;
+		try (ShardCoordinator coordinator = new ShardCoordinator(nStar, nShards, checkpointInterval, /* port= */0)) {
+			final int port = coordinator.getPort();
+			for (int k = 0; k < nShards; ++k) {
+				workers.set(k, startWorker(port, nStar, nShards, k, checkpointDir));
+			}
+			if (killMillis > 0) {
+				killer = new Thread(() -> {
+					try {
+						Thread.sleep(killMillis);
+						final Process worker0 = workers.get(0);
+						if (worker0.isAlive()) {
+							System.out.printf("%s killing worker 0.\n", GetStrings.getCurrentTimeString());
+							worker0.destroyForcibly().waitFor();
+							workers.set(0, startWorker(port, nStar, nShards, 0, checkpointDir));
+						}
+					} catch (final InterruptedException | IOException e) {
+					}
+				});
+				killer.setDaemon(true);
+				killer.start();
+			}
+			return coordinator.compute();
+		} finally {
+			if (killer != null) {
+				killer.interrupt();
+				killer.join();
+			}
+			for (int k = 0; k < nShards; ++k) {
+				final Process worker = workers.get(k);
+				if (worker != null && !worker.waitFor(5, TimeUnit.SECONDS)) {
+					worker.destroyForcibly();
+				}
+			}
+			for (final File file : checkpointDir.listFiles()) {
+				file.delete();
+			}
+			checkpointDir.delete();
+		}
+	}
+
+	public static void main(final String[] args) throws IOException, InterruptedException {
+		final int nStar = args.length > 0 ? Integer.parseInt(args[0]) : _NStar;
+		final int nShards = args.length > 1 ? Integer.parseInt(args[1]) : _NShards;
+		final long killMillis = args.length > 2 ? Long.parseLong(args[2]) : 0L;
+		long millis = System.currentTimeMillis();
+		final long f = compute(nStar, nShards, _CheckpointInterval, killMillis);
+		System.out.printf("nStar[%d] nShards[%d] f[%d].\tTook %d millis.\n", nStar, nShards, f,
+				System.currentTimeMillis() - millis);
+		millis = System.currentTimeMillis();
+		final long f0 = Euler0781.feynmanF(nStar);
+		System.out.printf("Euler0781 f[%d].\tTook %d millis.\n", f0, System.currentTimeMillis() - millis);
+		if (f != f0) {
+			System.out.println("MISMATCH.");
+			System.exit(1);
+		}
+	}
+}
@@ -0,0 +1,190 @@
+package com.skagit.euler.poly;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+import com.skagit.euler.util.ModArith;
+
+/**
+ * Number-theoretic transform mod one prime of the form c * 2^k + 1, with the
+ * butterflies done in a ModArith. Lengths are powers of 2 up to 2^k. If
+ * _parallel, each level of a long transform is split into chunks on the common
+ * ForkJoinPool, and multiply transforms its two operands at the same time.
+ */
+public class Ntt {
+	/** Loops shorter than this stay on the calling thread. */
+	final static int _ParallelLen = 1 << 13;
+	/** Iterations per task; a power of 2 that divides _ParallelLen. */
+	final static int _ChunkLen = 1 << 11;
+
+	final ModArith _mod;
+	final long _prime;
+	final int _maxLogLen;
+	final boolean _parallel;
+	/** Primitive 2^_maxLogLen-th root of unity, in form. */
+	final long _root;
+	/**
+	 * For each power of 2 half, [half, 2 * half) holds the powers of a primitive 2
+	 * * half-th root of unity. It only grows, so one table serves every shorter
+	 * length.
+	 */
+	private volatile long[] _twiddles = new long[1];
+
+	/** The body of a loop over [from, to). */
+	private interface Chunk {
+		void run(int from, int to);
+	}
+
+	public Ntt(final long prime, final long generator, final ModArith mod, final boolean parallel) {
+		_mod = mod;
+		_prime = prime;
+		_maxLogLen = Long.numberOfTrailingZeros(prime - 1);
+		_parallel = parallel;
+		_root = mod.pow(mod.toForm(generator), (prime - 1) >> _maxLogLen);
+	}
+
+	public int getMaxLen() {
+		return 1 << _maxLogLen;
+	}
+
+	private long[] getTwiddles(final int n) {
+		long[] twiddles = _twiddles;
+		if (twiddles.length >= n) {
+			return twiddles;
+		}
+		synchronized (this) {
+			twiddles = _twiddles;
+			if (twiddles.length < n) {
+				twiddles = new long[n];
+				final int top = n >> 1;
+				final long w = _mod.pow(_root, getMaxLen() / n);
+				twiddles[top] = _mod.one();
+				for (int k = 1; k < top; ++k) {
+					/** Reduced, so that lazy need not reduce them again in every butterfly. */
+					twiddles[top + k] = _mod.reduce(_mod.mul(twiddles[top + k - 1], w));
+				}
+				for (int half = top >> 1; half >= 1; half >>= 1) {
+					for (int k = 0; k < half; ++k) {
+						twiddles[half + k] = twiddles[2 * half + 2 * k];
+					}
+				}
+				_twiddles = twiddles;
+			}
+		}
+		return twiddles;
+	}
+
+	/** Runs chunk over [0, len), split across the common pool if that pays. */
+	private void forEachChunk(final int len, final Chunk chunk) {
+		if (!_parallel || len < _ParallelLen) {
+			chunk.run(0, len);
+			return;
+		}
+		IntStream.range(0, len / _ChunkLen).parallel().forEach(c -> chunk.run(c * _ChunkLen, (c + 1) * _ChunkLen));
+	}
+
+	/** Butterflies [from, to) of the level whose blocks are 2 * half long. */
+	private void butterflies(final long[] a, final long[] twiddles, final int half, final int from, final int to) {
+		for (int b = from; b < to;) {
+			final int block = b / half;
+			final int i = block * 2 * half;
+			final int k0 = b - block * half;
+			final int kEnd = Math.min(half, k0 + to - b);
+			for (int k = k0; k < kEnd; ++k) {
+				final long u = a[i + k];
+				final long v = _mod.mul(a[i + k + half], twiddles[half + k]);
+				a[i + k] = _mod.add(u, v);
+				a[i + k + half] = _mod.sub(u, v);
+			}
+			b += kEnd - k0;
+		}
+	}
+
+	/**
+	 * In place; a is in form and a.length is a power of 2. The inverse is the
+	 * forward transform with a[1..n) reversed, divided by n.
+	 */
+	void transform(final long[] a, final boolean invert) {
+		final int n = a.length;
+		final int logN = Integer.numberOfTrailingZeros(n);
+		if (logN > _maxLogLen) {
+			throw new IllegalArgumentException(String.format("Length %d is too long for prime %d.", n, _prime));
+		}
+		for (int i = 1, j = 0; i < n; ++i) {
+			int bit = n >> 1;
+			for (; (j & bit) != 0; bit >>= 1) {
+				j ^= bit;
+			}
+			j ^= bit;
+			if (i < j) {
+				final long t = a[i];
+				a[i] = a[j];
+				a[j] = t;
+			}
+		}
+		final long[] twiddles = getTwiddles(n);
+		for (int half = 1; half < n; half <<= 1) {
+			final int h = half;
+			forEachChunk(n >> 1, (from, to) -> butterflies(a, twiddles, h, from, to));
+		}
+		if (invert) {
+			for (int i = 1, j = n - 1; i < j; ++i, --j) {
+				final long t = a[i];
+				a[i] = a[j];
+				a[j] = t;
+			}
+			final long nInverse = _mod.inverse(_mod.toForm(n));
+			forEachChunk(n, (from, to) -> {
+				for (int i = from; i < to; ++i) {
+					a[i] = _mod.mul(a[i], nInverse);
+				}
+			});
+		}
+	}
+
+	private long[] toForms(final long[] a, final int len, final int n) {
+		final long[] forms = new long[n];
+		for (int k = 0; k < len; ++k) {
+			forms[k] = _mod.toForm(a[k]);
+		}
+		return forms;
+	}
+
+	/**
+	 * The first resultLen coefficients of a * b mod _prime. Inputs are plain
+	 * nonnegative longs; the output is in _mod's form. If a == b, we transform it
+	 * once.
+	 */
+	public long[] multiply(final long[] a, final long[] b, final int resultLen) {
+		final int aLen = Math.min(a.length, resultLen), bLen = Math.min(b.length, resultLen);
+		int n = 1;
+		while (n < aLen + bLen - 1) {
+			n <<= 1;
+		}
+		final long[] fa = toForms(a, aLen, n);
+		final long[] fb;
+		if (a == b) {
+			fb = fa;
+			transform(fa, false);
+		} else {
+			fb = toForms(b, bLen, n);
+			if (_parallel && n >= _ParallelLen) {
+				final CompletableFuture<Void> fbDone = CompletableFuture.runAsync(() -> transform(fb, false));
+				transform(fa, false);
+				fbDone.join();
+			} else {
+				transform(fa, false);
+				transform(fb, false);
+			}
+		}
+		forEachChunk(n, (from, to) -> {
+			for (int k = from; k < to; ++k) {
+				fa[k] = _mod.mul(fa[k], fb[k]);
+			}
+		});
+		transform(fa, true);
+		final long[] result = new long[resultLen];
+		System.arraycopy(fa, 0, result, 0, Math.min(resultLen, n));
+		return result;
+	}
+}
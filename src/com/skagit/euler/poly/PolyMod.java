@@ -0,0 +1,218 @@
+package com.skagit.euler.poly;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import com.skagit.euler.util.ModArith;
+
+/**
+ * Truncated power series mod an arbitrary prime _modulo < 2^31 (typically
+ * Euler0781._Modulo, which has no large power of 2 in _modulo - 1). Products go
+ * through three NTT primes and are put back together with Garner's CRT. Unless
+ * the caller asks otherwise, the primes run as three tasks, and each Ntt splits
+ * its long transforms across the common ForkJoinPool. 998244353 = 119 * 2^23 + 1
+ * limits transforms, and so products, to 2^23 coefficients; see getMaxLen.
+ * Series are long[]s in _mod's form, coefficient k at index k; the NTT primes
+ * use the same ModArith backend as _mod.
+ */
+public class PolyMod {
+	final static long[] _Primes = {
+			998244353L, 167772161L, 469762049L
+	};
+	final static long _Generator = 3;
+	/** Below this, schoolbook beats three NTTs. */
+	final static int _NaiveLen = 64;
+
+	final long _modulo;
+	final boolean _parallel;
+	final ModArith _mod;
+	final Ntt[] _ntts;
+	/** Garner's constants, each in the form of the ModArith it is used with. */
+	final long _p0InverseModP1, _p0ModP2, _p01InverseModP2, _p0ModModulo, _p01ModModulo;
+
+	public PolyMod(final long modulo) {
+		this(ModArith.getDefault(modulo), /* parallel= */true);
+	}
+
+	/** If !parallel, or there is only one processor, everything runs on the calling thread. */
+	public PolyMod(final ModArith mod, final boolean parallel) {
+		_modulo = mod.getModulo();
+		_parallel = parallel && Runtime.getRuntime().availableProcessors() > 1;
+		_mod = mod;
+		_ntts = new Ntt[_Primes.length];
+		for (int k = 0; k < _Primes.length; ++k) {
+			_ntts[k] = new Ntt(_Primes[k], _Generator, ModArith.create(mod.getName(), _Primes[k]), _parallel);
+		}
+		final long p0 = _Primes[0], p1 = _Primes[1];
+		final ModArith mod1 = _ntts[1]._mod, mod2 = _ntts[2]._mod;
+		_p0InverseModP1 = mod1.inverse(mod1.toForm(p0));
+		_p0ModP2 = mod2.toForm(p0);
+		_p01InverseModP2 = mod2.inverse(mod2.mul(_p0ModP2, mod2.toForm(p1)));
+		_p0ModModulo = mod.toForm(p0);
+		_p01ModModulo = mod.mul(_p0ModModulo, mod.toForm(p1));
+	}
+
+	public ModArith getModArith() {
+		return _mod;
+	}
+
+	public long getModulo() {
+		return _modulo;
+	}
+
+	/** The longest product multiply can form. */
+	public int getMaxLen() {
+		int maxLen = Integer.MAX_VALUE;
+		for (final Ntt ntt : _ntts) {
+			maxLen = Math.min(maxLen, ntt.getMaxLen());
+		}
+		return maxLen;
+	}
+
+	/** The first n coefficients of a * b. */
+	public long[] multiply(final long[] a, final long[] b, final int n) {
+		final int aLen = Math.min(a.length, n), bLen = Math.min(b.length, n);
+		if (aLen == 0 || bLen == 0) {
+			return new long[n];
+		}
+		if (Math.min(aLen, bLen) <= _NaiveLen) {
+			return multiplyNaive(a, aLen, b, bLen, n);
+		}
+		/** The NTTs work on plain residues; each puts them into its own form. */
+		final long[] plainA = new long[aLen];
+		for (int k = 0; k < aLen; ++k) {
+			plainA[k] = _mod.fromForm(a[k]);
+		}
+		/** A square stays one array, so that each Ntt transforms it once. */
+		final long[] plainB;
+		if (a == b) {
+			plainB = plainA;
+		} else {
+			plainB = new long[bLen];
+			for (int k = 0; k < bLen; ++k) {
+				plainB[k] = _mod.fromForm(b[k]);
+			}
+		}
+		final long[][] residues = new long[_ntts.length][];
+		if (_parallel) {
+			final List<CompletableFuture<long[]>> futures = new ArrayList<>();
+			for (final Ntt ntt : _ntts) {
+				futures.add(CompletableFuture.supplyAsync(() -> ntt.multiply(plainA, plainB, n)));
+			}
+			for (int k = 0; k < _ntts.length; ++k) {
+				residues[k] = futures.get(k).join();
+			}
+		} else {
+			for (int k = 0; k < _ntts.length; ++k) {
+				residues[k] = _ntts[k].multiply(plainA, plainB, n);
+			}
+		}
+		final long[] r0 = residues[0], r1 = residues[1], r2 = residues[2];
+		final ModArith mod0 = _ntts[0]._mod, mod1 = _ntts[1]._mod, mod2 = _ntts[2]._mod;
+		final long[] c = new long[n];
+		for (int k = 0; k < n; ++k) {
+			/** x = x0 + x1 * p0 + x2 * p0 * p1, with xi in [0, pi) and plain. */
+			final long x0 = mod0.fromForm(r0[k]);
+			final long x1 = mod1.fromForm(mod1.mul(mod1.sub(r1[k], mod1.toForm(x0)), _p0InverseModP1));
+			final long x01 = mod2.mulAddSmall(_p0ModP2, x1, mod2.toForm(x0));
+			final long x2 = mod2.fromForm(mod2.mul(mod2.sub(r2[k], x01), _p01InverseModP2));
+			c[k] = _mod.mulAddSmall(_p01ModModulo, x2, _mod.mulAddSmall(_p0ModModulo, x1, _mod.toForm(x0)));
+		}
+		return c;
+	}
+
+	private long[] multiplyNaive(final long[] a, final int aLen, final long[] b, final int bLen, final int n) {
+		final long[] c = new long[n];
+		for (int i = 0; i < aLen; ++i) {
+			final long ai = a[i];
+			if (ai == 0) {
+				continue;
+			}
+			final int jEnd = Math.min(bLen, n - i);
+			for (int j = 0; j < jEnd; ++j) {
+				c[i + j] = _mod.mulAdd(ai, b[j], c[i + j]);
+			}
+		}
+		return c;
+	}
+
+	/** 1 / a mod x^n; a[0] != 0. Newton: b <- b * (2 - a * b). */
+	public long[] inverse(final long[] a, final int n) {
+		long[] b = new long[] {
+				_mod.inverse(a[0])
+		};
+		for (int len = 1; len < n;) {
+			len = Math.min(len << 1, n);
+			final long[] t = multiply(a, b, len);
+			for (int k = 0; k < len; ++k) {
+				t[k] = _mod.sub(0, t[k]);
+			}
+			t[0] = _mod.add(t[0], _mod.toForm(2));
+			b = multiply(b, t, len);
+		}
+		return truncate(b, n);
+	}
+
+	public long[] derivative(final long[] a, final int n) {
+		final long[] d = new long[n];
+		for (int k = 0; k < n && k + 1 < a.length; ++k) {
+			d[k] = _mod.mulAddSmall(a[k + 1], k + 1, 0);
+		}
+		return d;
+	}
+
+	/** The antiderivative with constant term 0. */
+	public long[] integral(final long[] a, final int n) {
+		final long[] inverses = getInverses(n);
+		final long[] s = new long[n];
+		for (int k = 1; k < n && k - 1 < a.length; ++k) {
+			s[k] = _mod.mul(a[k - 1], inverses[k]);
+		}
+		return s;
+	}
+
+	/** log(a) mod x^n; a[0] is one in form. */
+	public long[] log(final long[] a, final int n) {
+		if (n <= 1) {
+			return new long[n];
+		}
+		return integral(multiply(derivative(a, n - 1), inverse(a, n - 1), n - 1), n);
+	}
+
+	/** exp(a) mod x^n; a[0] == 0. Newton: b <- b * (1 + a - log(b)). */
+	public long[] exp(final long[] a, final int n) {
+		long[] b = new long[] {
+				_mod.one()
+		};
+		for (int len = 1; len < n;) {
+			len = Math.min(len << 1, n);
+			final long[] t = log(b, len);
+			for (int k = 0; k < len; ++k) {
+				t[k] = _mod.sub(k < a.length ? a[k] : 0, t[k]);
+			}
+			t[0] = _mod.add(t[0], _mod.one());
+			b = multiply(b, t, len);
+		}
+		return truncate(b, n);
+	}
+
+	/** 1/k mod _modulo, in form, for k in [1, n); the usual linear-time recurrence. */
+	long[] getInverses(final int n) {
+		final long[] inverses = new long[Math.max(n, 2)];
+		inverses[1] = _mod.one();
+		for (int k = 2; k < n; ++k) {
+			inverses[k] = _mod.mul(_mod.toForm(_modulo - _modulo / k), inverses[(int) (_modulo % k)]);
+		}
+		return inverses;
+	}
+
+	static long[] truncate(final long[] a, final int n) {
+		if (a.length == n) {
+			return a;
+		}
+		final long[] b = new long[n];
+		System.arraycopy(a, 0, b, 0, Math.min(n, a.length));
+		return b;
+	}
+}
@@ -0,0 +1,27 @@
+package com.skagit.euler.runner;
+
+/**
+ * A problem that {@link ProblemRunner} can run. Parameters are longs, given
+ * positionally; missing ones fall back to {@link #getDefaultParams()}.
+ * ProblemRunner only passes positive values that fit in an int.
+ */
+public interface Problem {
+
+	default String getName() {
+		return getClass().getSimpleName();
+	}
+
+	/**
+	 * Whether solve hands work to other threads. ProblemRunner then runs it alone
+	 * and reports process-wide cpu and allocation.
+	 */
+	default boolean isMultiThreaded() {
+		return false;
+	}
+
+	String[] getParamNames();
+
+	long[] getDefaultParams();
+
+	long solve(long[] params);
+}
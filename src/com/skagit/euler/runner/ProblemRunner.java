@@ -0,0 +1,377 @@
+package com.skagit.euler.runner;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.lang.management.ThreadMXBean;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.skagit.euler.euler0781.Euler0781;
+import com.skagit.euler.util.ModArith;
+
+/**
+ * Runs registered {@link Problem}s, each on its own thread, with JIT warm-up,
+ * and emits wall-clock, cpu-time, and allocation for every timed run as JSON.
+ * Each problem runs start-to-finish on a single thread, so the per-thread cpu
+ * and allocation counters belong to it alone. Problems whose solve hands work
+ * to other threads say so with {@link Problem#isMultiThreaded()}; they run
+ * alone, after the others, and their cpu and allocation are process-wide, so
+ * they include GC and JIT threads.
+ *
+ * <pre>
+ * ProblemRunner [-warmUps n] [-runs n] [-threads n] [-modArith name] [-out file] Name[:p0,p1,...] ...
+ * </pre>
+ *
+ * -modArith sets the {@link ModArith} backend that the Feynman kernels use.
+ */
+public class ProblemRunner {
+	final static int _DefaultNWarmUps = 3;
+	final static int _DefaultNRuns = 5;
+	/** Maven fills in version and buildTime, so runs can be tied to a release. */
+	final static Properties _BuildProperties = loadBuildProperties();
+
+	static class Job {
+		final Problem _problem;
+		final long[] _params;
+
+		Job(final Problem problem, final long[] params) {
+			_problem = problem;
+			_params = params;
+		}
+	}
+
+	static class Result {
+		final Job _job;
+		final long[] _wallNanos, _cpuNanos, _allocatedBytes;
+		long _answer;
+		String _error;
+
+		Result(final Job job, final int nRuns) {
+			_job = job;
+			_wallNanos = new long[nRuns];
+			_cpuNanos = new long[nRuns];
+			_allocatedBytes = new long[nRuns];
+		}
+	}
+
+	final int _nWarmUps, _nRuns;
+
+	public ProblemRunner(final int nWarmUps, final int nRuns) {
+		_nWarmUps = nWarmUps;
+		_nRuns = nRuns;
+	}
+
+	/**
+	 * Parses "Name" or "Name:p0,p1,...". Every solve takes its parameters as
+	 * ints, so each must be a positive int.
+	 */
+	static Job parseJob(final String arg) {
+		final int colon = arg.indexOf(':');
+		final String name = colon < 0 ? arg : arg.substring(0, colon);
+		final Problem problem = Problems.getProblem(name);
+		if (problem == null) {
+			throw new IllegalArgumentException(String.format("Unknown problem %s.", name));
+		}
+		final long[] params = problem.getDefaultParams().clone();
+		if (colon >= 0) {
+			final String[] fields = arg.substring(colon + 1).split(",");
+			if (fields.length > params.length) {
+				throw new IllegalArgumentException(
+						String.format("%s takes %d parameter(s), not %d.", problem.getName(), params.length, fields.length));
+			}
+			for (int k = 0; k < fields.length; ++k) {
+				if (fields[k].isBlank()) {
+					continue;
+				}
+				final String paramName = problem.getParamNames()[k];
+				try {
+					params[k] = Long.parseLong(fields[k].trim());
+				} catch (final NumberFormatException e) {
+					throw new IllegalArgumentException(
+							String.format("%s's %s[%s] is not an integer.", problem.getName(), paramName, fields[k].trim()));
+				}
+				if (params[k] < 1 || params[k] > Integer.MAX_VALUE) {
+					throw new IllegalArgumentException(String.format("%s's %s[%d] must be in [1, %d].",
+							problem.getName(), paramName, params[k], Integer.MAX_VALUE));
+				}
+			}
+		}
+		return new Job(problem, params);
+	}
+
+	Result run(final Job job) {
+		final Result result = new Result(job, _nRuns);
+		final boolean processWide = job._problem.isMultiThreaded();
+		final ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		final com.sun.management.ThreadMXBean sunBean = bean instanceof com.sun.management.ThreadMXBean
+				? (com.sun.management.ThreadMXBean) bean
+				: null;
+		final OperatingSystemMXBean osBean = ManagementFactory.getOperatingSystemMXBean();
+		final com.sun.management.OperatingSystemMXBean sunOsBean = osBean instanceof com.sun.management.OperatingSystemMXBean
+				? (com.sun.management.OperatingSystemMXBean) osBean
+				: null;
+		final boolean haveCpu = processWide ? sunOsBean != null : bean.isCurrentThreadCpuTimeSupported();
+		final boolean haveAlloc = sunBean != null && sunBean.isThreadAllocatedMemorySupported();
+		final long threadId = Thread.currentThread().getId();
+		try {
+			for (int k = 0; k < _nWarmUps; ++k) {
+				job._problem.solve(job._params);
+			}
+			for (int k = 0; k < _nRuns; ++k) {
+				final long[] threadIds0 = processWide ? bean.getAllThreadIds() : null;
+				final long[] allocs0 = haveAlloc && processWide ? sunBean.getThreadAllocatedBytes(threadIds0) : null;
+				final long alloc0 = haveAlloc && !processWide ? sunBean.getThreadAllocatedBytes(threadId) : 0L;
+				final long cpu0 = !haveCpu ? 0L : processWide ? sunOsBean.getProcessCpuTime() : bean.getCurrentThreadCpuTime();
+				final long wall0 = System.nanoTime();
+				final long answer = job._problem.solve(job._params);
+				final long wall1 = System.nanoTime();
+				final long cpu1 = !haveCpu ? -1L : processWide ? sunOsBean.getProcessCpuTime() : bean.getCurrentThreadCpuTime();
+				final long alloc1 = haveAlloc && !processWide ? sunBean.getThreadAllocatedBytes(threadId) : -1L;
+				if (k > 0 && answer != result._answer) {
+					result._error = String.format("Answer changed from %d to %d.", result._answer, answer);
+				}
+				result._answer = answer;
+				result._wallNanos[k] = wall1 - wall0;
+				result._cpuNanos[k] = cpu1 - cpu0;
+				result._allocatedBytes[k] = !processWide ? alloc1 - alloc0
+						: haveAlloc ? getAllocatedSince(sunBean, threadIds0, allocs0) : -1L;
+			}
+		} catch (final RuntimeException | OutOfMemoryError e) {
+			result._error = e.toString();
+		}
+		return result;
+	}
+
+	/**
+	 * Bytes allocated by every live thread since threadIds0 had allocs0. Threads
+	 * started since count from 0; threads that have exited are missed.
+	 */
+	static long getAllocatedSince(final com.sun.management.ThreadMXBean sunBean, final long[] threadIds0,
+			final long[] allocs0) {
+		final long[] threadIds1 = ManagementFactory.getThreadMXBean().getAllThreadIds();
+		final long[] allocs1 = sunBean.getThreadAllocatedBytes(threadIds1);
+		final Map<Long, Long> before = new HashMap<>();
+		for (int k = 0; k < threadIds0.length; ++k) {
+			before.put(threadIds0[k], allocs0[k]);
+		}
+		long sum = 0;
+		for (int k = 0; k < threadIds1.length; ++k) {
+			if (allocs1[k] >= 0) {
+				sum += allocs1[k] - Math.max(0L, before.getOrDefault(threadIds1[k], 0L));
+			}
+		}
+		return sum;
+	}
+
+	/**
+	 * Single-threaded jobs share a pool of nThreads; multi-threaded ones then run
+	 * one at a time, so that nothing else shows up in their process-wide counters.
+	 */
+	public Result[] runAll(final Job[] jobs, final int nThreads) throws InterruptedException {
+		final ExecutorService executor = Executors.newFixedThreadPool(nThreads);
+		try {
+			final ArrayList<Future<Result>> futures = new ArrayList<>();
+			for (final Job job : jobs) {
+				futures.add(job._problem.isMultiThreaded() ? null : executor.submit(() -> run(job)));
+			}
+			final Result[] results = new Result[jobs.length];
+			for (int k = 0; k < jobs.length; ++k) {
+				if (futures.get(k) == null) {
+					continue;
+				}
+				try {
+					results[k] = futures.get(k).get();
+				} catch (final ExecutionException e) {
+					results[k] = new Result(jobs[k], 0);
+					results[k]._error = e.getCause().toString();
+				}
+			}
+			for (int k = 0; k < jobs.length; ++k) {
+				if (futures.get(k) == null) {
+					results[k] = run(jobs[k]);
+				}
+			}
+			return results;
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	String toJson(final Result[] results, final int nThreads) {
+		final StringBuilder sb = new StringBuilder();
+		sb.append("{\n");
+		sb.append(String.format("  \"timestamp\": %s,\n", quote(Instant.now().toString())));
+		sb.append(String.format("  \"version\": %s,\n", quote(getBuildProperty("version"))));
+		sb.append(String.format("  \"buildTime\": %s,\n", quote(getBuildProperty("buildTime"))));
+		sb.append(String.format("  \"javaVersion\": %s,\n", quote(System.getProperty("java.version"))));
+		sb.append(String.format("  \"vmName\": %s,\n", quote(System.getProperty("java.vm.name"))));
+		sb.append(String.format("  \"osArch\": %s,\n", quote(System.getProperty("os.arch"))));
+		sb.append(String.format("  \"nProcessors\": %d,\n", Runtime.getRuntime().availableProcessors()));
+		sb.append(String.format("  \"nThreads\": %d,\n", nThreads));
+		sb.append(String.format("  \"nWarmUps\": %d,\n", _nWarmUps));
+		sb.append(String.format("  \"nRuns\": %d,\n", _nRuns));
+		sb.append(String.format("  \"modArith\": %s,\n",
+				quote(System.getProperty(ModArith._PropertyName, ModArith._DefaultName))));
+		sb.append("  \"results\": [");
+		for (int k = 0; k < results.length; ++k) {
+			final Result result = results[k];
+			final Problem problem = result._job._problem;
+			final String[] paramNames = problem.getParamNames();
+			sb.append(k == 0 ? "\n" : ",\n");
+			sb.append("    {\n");
+			sb.append(String.format("      \"problem\": %s,\n", quote(problem.getName())));
+			if (problem.isMultiThreaded()) {
+				/** cpuNanos and allocatedBytes are then process-wide. */
+				sb.append("      \"multiThreaded\": true,\n");
+			}
+			sb.append("      \"params\": {");
+			for (int k1 = 0; k1 < paramNames.length; ++k1) {
+				sb.append(String.format("%s%s: %d", k1 == 0 ? "" : ", ", quote(paramNames[k1]),
+						result._job._params[k1]));
+			}
+			sb.append("},\n");
+			if (result._error != null) {
+				sb.append(String.format("      \"error\": %s,\n", quote(result._error)));
+			}
+			sb.append(String.format("      \"answer\": %d,\n", result._answer));
+			sb.append(String.format("      \"medianWallNanos\": %d,\n", median(result._wallNanos)));
+			sb.append(String.format("      \"wallNanos\": %s,\n", Arrays.toString(result._wallNanos)));
+			sb.append(String.format("      \"cpuNanos\": %s,\n", Arrays.toString(result._cpuNanos)));
+			sb.append(String.format("      \"allocatedBytes\": %s\n", Arrays.toString(result._allocatedBytes)));
+			sb.append("    }");
+		}
+		sb.append("\n  ]\n}\n");
+		return sb.toString();
+	}
+
+	static Properties loadBuildProperties() {
+		final Properties properties = new Properties();
+		try (InputStream in = ProblemRunner.class.getResourceAsStream("build.properties")) {
+			if (in != null) {
+				properties.load(in);
+			}
+		} catch (final IOException e) {
+		}
+		return properties;
+	}
+
+	/** "unknown" if the classes were not built by Maven. */
+	static String getBuildProperty(final String key) {
+		final String value = _BuildProperties.getProperty(key);
+		return value == null || value.startsWith("${") ? "unknown" : value;
+	}
+
+	static long median(final long[] arr) {
+		if (arr.length == 0) {
+			return -1L;
+		}
+		final long[] sorted = arr.clone();
+		Arrays.sort(sorted);
+		return sorted[sorted.length / 2];
+	}
+
+	static String quote(final String s) {
+		final StringBuilder sb = new StringBuilder("\"");
+		for (final char c : s.toCharArray()) {
+			if (c == '"' || c == '\\') {
+				sb.append('\\').append(c);
+			} else if (c < 0x20) {
+				sb.append(String.format("\\u%04x", (int) c));
+			} else {
+				sb.append(c);
+			}
+		}
+		return sb.append('"').toString();
+	}
+
+	static int parseCount(final String option, final String value) {
+		try {
+			final int count = Integer.parseInt(value);
+			if (count >= 0) {
+				return count;
+			}
+		} catch (final NumberFormatException e) {
+		}
+		throw new IllegalArgumentException(String.format("%s[%s] must be a non-negative int.", option, value));
+	}
+
+	static void printUsage() {
+		System.err.println(
+				"Usage: ProblemRunner [-warmUps n] [-runs n] [-threads n] [-modArith name] [-out file] Name[:p0,p1,...] ...");
+		System.err.printf("modArith: %s\n", String.join(", ", ModArith._Names));
+		System.err.println("Problems:");
+		for (final Problem problem : Problems.getProblems()) {
+			System.err.printf("  %s %s defaults %s\n", problem.getName(), Arrays.toString(problem.getParamNames()),
+					Arrays.toString(problem.getDefaultParams()));
+		}
+	}
+
+	public static void main(final String[] args) throws InterruptedException, FileNotFoundException {
+		int nWarmUps = _DefaultNWarmUps;
+		int nRuns = _DefaultNRuns;
+		int nThreads = 0;
+		String outFileName = null;
+		final ArrayList<Job> jobs = new ArrayList<>();
+		try {
+			for (int k = 0; k < args.length; ++k) {
+				final String arg = args[k];
+				if (arg.startsWith("-") && k + 1 < args.length) {
+					final String value = args[++k];
+					switch (arg) {
+					case "-warmUps":
+						nWarmUps = parseCount(arg, value);
+						continue;
+					case "-runs":
+						nRuns = parseCount(arg, value);
+						continue;
+					case "-threads":
+						nThreads = parseCount(arg, value);
+						continue;
+					case "-modArith":
+						System.setProperty(ModArith._PropertyName, ModArith.create(value, Euler0781._Modulo).getName());
+						continue;
+					case "-out":
+						outFileName = value;
+						continue;
+					default:
+						throw new IllegalArgumentException(String.format("Unknown option %s.", arg));
+					}
+				}
+				jobs.add(parseJob(arg));
+			}
+		} catch (final IllegalArgumentException e) {
+			System.err.println(e.getMessage());
+			printUsage();
+			return;
+		}
+		if (jobs.isEmpty()) {
+			printUsage();
+			return;
+		}
+		if (nThreads <= 0) {
+			nThreads = Math.min(jobs.size(), Runtime.getRuntime().availableProcessors());
+		}
+		final ProblemRunner runner = new ProblemRunner(nWarmUps, nRuns);
+		final Result[] results = runner.runAll(jobs.toArray(new Job[0]), nThreads);
+		final String json = runner.toJson(results, nThreads);
+		if (outFileName == null) {
+			System.out.print(json);
+		} else {
+			try (PrintStream ps = new PrintStream(outFileName)) {
+				ps.print(json);
+			}
+		}
+	}
+}
@@ -0,0 +1,29 @@
+package com.skagit.euler.runner;
+
+import com.skagit.euler.euler0007.Euler0007;
+import com.skagit.euler.euler0781.Euler0781;
+import com.skagit.euler.euler0781.FeynmanSeries;
+import com.skagit.euler.euler0781.Obsolete.FeynmanF0;
+import com.skagit.euler.euler0781.Obsolete.FeynmanF1;
+import com.skagit.euler.euler0781.Obsolete.FeynmanF2;
+
+/** The registry. Add new problems here. */
+public class Problems {
+	final static Problem[] _Problems = {
+			new Euler0007(), new Euler0781(), new FeynmanF0(), new FeynmanF1(), new FeynmanF2(),
+			new FeynmanSeries()
+	};
+
+	public static Problem getProblem(final String name) {
+		for (final Problem problem : _Problems) {
+			if (problem.getName().equalsIgnoreCase(name)) {
+				return problem;
+			}
+		}
+		return null;
+	}
+
+	public static Problem[] getProblems() {
+		return _Problems.clone();
+	}
+}
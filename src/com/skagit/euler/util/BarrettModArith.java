@@ -0,0 +1,51 @@
+package com.skagit.euler.util;
+
+/**
+ * Replaces % by a multiply-high with floor(2^64 / _modulo); the quotient is off
+ * by at most one, which one conditional subtraction fixes.
+ */
+public class BarrettModArith extends ModArith {
+	private final long _m;
+
+	public BarrettModArith(final long modulo) {
+		super(modulo);
+		_m = Long.divideUnsigned(-1L, modulo);
+	}
+
+	@Override
+	public String getName() {
+		return "barrett";
+	}
+
+	/** 0 <= x < 2^63. */
+	private long barrett(final long x) {
+		final long r = x - Math.multiplyHigh(x, _m) * _modulo;
+		return r >= _modulo ? r - _modulo : r;
+	}
+
+	@Override
+	public long toForm(final long x) {
+		return barrett(x);
+	}
+
+	@Override
+	public long add(final long a, final long b) {
+		final long s = a + b;
+		return s >= _modulo ? s - _modulo : s;
+	}
+
+	@Override
+	public long mul(final long a, final long b) {
+		return barrett(a * b);
+	}
+
+	@Override
+	public long mulAdd(final long a, final long b, final long c) {
+		return barrett(a * b + c);
+	}
+
+	@Override
+	public long mulAddSmall(final long a, final long k, final long c) {
+		return barrett(a * k + c);
+	}
+}
@@ -0,0 +1,46 @@
+package com.skagit.euler.util;
+
+/**
+ * Lets values grow and reduces only when the next operation could overflow.
+ * Values are anything congruent below 2^62, so two of them add without
+ * overflow; factors of 2^31 or more are reduced before multiplying.
+ */
+public class LazyModArith extends ModArith {
+	private final static long _Limit = 1L << 62;
+	private final static long _FactorLimit = 1L << 31;
+
+	public LazyModArith(final long modulo) {
+		super(modulo);
+	}
+
+	@Override
+	public String getName() {
+		return "lazy";
+	}
+
+	@Override
+	public long fromForm(final long x) {
+		return x % _modulo;
+	}
+
+	@Override
+	public long reduce(final long x) {
+		return x % _modulo;
+	}
+
+	@Override
+	public long add(final long a, final long b) {
+		final long s = a + b;
+		return s < _Limit ? s : s % _modulo;
+	}
+
+	@Override
+	public long mul(final long a, final long b) {
+		return (a < _FactorLimit ? a : a % _modulo) * (b < _FactorLimit ? b : b % _modulo);
+	}
+
+	@Override
+	public long mulAddSmall(final long a, final long k, final long c) {
+		return add((a < _FactorLimit ? a : a % _modulo) * k, c);
+	}
+}
@@ -0,0 +1,105 @@
+package com.skagit.euler.util;
+
+/**
+ * Arithmetic mod an odd _modulo < 2^31, with interchangeable backends. Values
+ * live in the backend's "form" (Montgomery's is x * 2^32 mod _modulo, Lazy's
+ * is any congruent value < 2^62, the others are plain residues); convert with
+ * toForm and fromForm at the edges. 0 is 0 in every form.
+ *
+ * The backend is chosen with -DmodArith=plain|barrett|montgomery|lazy. Pick one
+ * per JVM; with only one subclass loaded, the JIT can inline the calls. The
+ * default is lazy, which ModArithBench shows winning on Euler0781's kernel;
+ * barrett wins on residue-by-residue products.
+ */
+public abstract class ModArith {
+	public final static String _PropertyName = "modArith";
+	public final static String _DefaultName = "lazy";
+	public final static String[] _Names = {
+			"plain", "barrett", "montgomery", "lazy"
+	};
+
+	protected final long _modulo;
+
+	protected ModArith(final long modulo) {
+		if (modulo < 3 || modulo >= (1L << 31) || modulo % 2 == 0) {
+			throw new IllegalArgumentException(String.format("Bad modulo %d.", modulo));
+		}
+		_modulo = modulo;
+	}
+
+	public static ModArith create(final String name, final long modulo) {
+		switch (name.toLowerCase()) {
+		case "plain":
+			return new PlainModArith(modulo);
+		case "barrett":
+			return new BarrettModArith(modulo);
+		case "montgomery":
+			return new MontgomeryModArith(modulo);
+		case "lazy":
+			return new LazyModArith(modulo);
+		default:
+			throw new IllegalArgumentException(String.format("Unknown %s %s.", _PropertyName, name));
+		}
+	}
+
+	public static ModArith getDefault(final long modulo) {
+		return create(System.getProperty(_PropertyName, _DefaultName), modulo);
+	}
+
+	public abstract String getName();
+
+	public long getModulo() {
+		return _modulo;
+	}
+
+	/** x >= 0. */
+	public long toForm(final long x) {
+		return x % _modulo;
+	}
+
+	public long fromForm(final long x) {
+		return x;
+	}
+
+	public long one() {
+		return toForm(1);
+	}
+
+	/** The canonical representative, in [0, _modulo). Fit for an int[]. */
+	public long reduce(final long x) {
+		return x;
+	}
+
+	public abstract long add(long a, long b);
+
+	public abstract long mul(long a, long b);
+
+	/** a * b + c. */
+	public long mulAdd(final long a, final long b, final long c) {
+		return add(mul(a, b), c);
+	}
+
+	/** a * k + c, where k is a plain (not in form) int >= 0. */
+	public abstract long mulAddSmall(long a, long k, long c);
+
+	public long sub(final long a, final long b) {
+		return add(a, _modulo - reduce(b));
+	}
+
+	/** a^e, e >= 0 plain. */
+	public long pow(long a, long e) {
+		long result = one();
+		for (; e > 0; e >>= 1) {
+			if ((e & 1) != 0) {
+				result = mul(result, a);
+			}
+			a = mul(a, a);
+		}
+		return result;
+	}
+
+	/** a^-1; needs _modulo prime. */
+	public long inverse(final long a) {
+		return pow(a, _modulo - 2);
+	}
+}
@@ -0,0 +1,65 @@
+package com.skagit.euler.util;
+
+/**
+ * Montgomery form with R = 2^32: x is held as x * R mod _modulo, and a product
+ * is reduced with two multiplies and a shift instead of a division. It pays off
+ * for products of two residues; multiplying by a plain int k costs an extra
+ * reduction to put k into form.
+ */
+public class MontgomeryModArith extends ModArith {
+	private final static long _Mask = 0xffffffffL;
+	/** -_modulo^-1 mod R. */
+	private final long _nPrime;
+	/** R^2 mod _modulo. */
+	private final long _r2;
+
+	public MontgomeryModArith(final long modulo) {
+		super(modulo);
+		/** Newton; each step doubles the number of correct low bits. */
+		long inv = modulo;
+		for (int k = 0; k < 5; ++k) {
+			inv = (inv * (2 - modulo * inv)) & _Mask;
+		}
+		_nPrime = (-inv) & _Mask;
+		final long r = (1L << 32) % modulo;
+		_r2 = (r * r) % modulo;
+	}
+
+	@Override
+	public String getName() {
+		return "montgomery";
+	}
+
+	/** t * R^-1 mod _modulo, for 0 <= t < _modulo * R. */
+	private long redc(final long t) {
+		final long m = ((t & _Mask) * _nPrime) & _Mask;
+		final long u = (t + m * _modulo) >>> 32;
+		return u >= _modulo ? u - _modulo : u;
+	}
+
+	@Override
+	public long toForm(final long x) {
+		return redc((x % _modulo) * _r2);
+	}
+
+	@Override
+	public long fromForm(final long x) {
+		return redc(x);
+	}
+
+	@Override
+	public long add(final long a, final long b) {
+		final long s = a + b;
+		return s >= _modulo ? s - _modulo : s;
+	}
+
+	@Override
+	public long mul(final long a, final long b) {
+		return redc(a * b);
+	}
+
+	@Override
+	public long mulAddSmall(final long a, final long k, final long c) {
+		return add(redc(a * redc(k * _r2)), c);
+	}
+}
@@ -0,0 +1,39 @@
+package com.skagit.euler.util;
+
+/**
+ * One % per operation, and every % on a long. That is not the old kernels'
+ * cost: Euler0781 kept its prefix sum in an int, where % is much cheaper, and
+ * this is about 2x slower than that loop. ModArithBench's Euler0781Base row
+ * times the old loop.
+ */
+public class PlainModArith extends ModArith {
+
+	public PlainModArith(final long modulo) {
+		super(modulo);
+	}
+
+	@Override
+	public String getName() {
+		return "plain";
+	}
+
+	@Override
+	public long add(final long a, final long b) {
+		return (a + b) % _modulo;
+	}
+
+	@Override
+	public long mul(final long a, final long b) {
+		return (a * b) % _modulo;
+	}
+
+	@Override
+	public long mulAdd(final long a, final long b, final long c) {
+		return (a * b + c) % _modulo;
+	}
+
+	@Override
+	public long mulAddSmall(final long a, final long k, final long c) {
+		return (a * k + c) % _modulo;
+	}
+}
@@ -0,0 +1,85 @@
+package com.skagit.euler.euler0781;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import com.skagit.euler.util.ModArith;
+
+/**
+ * The Riccati equation behind FeynmanSeries was first fitted to 90 values; this
+ * checks it well past that, against the DP itself.
+ */
+class FeynmanSeriesTest {
+	final static int _NStar = 20000;
+
+	/** Euler0781's DP with plain %, keeping alpha[1] after every pass: F(2), F(4), ..., F(nStar). */
+	static long[] getDpValues(final int nStar) {
+		final long modulo = Euler0781._Modulo;
+		final long[] values = new long[nStar / 2];
+		long[] alpha = new long[nStar];
+		Arrays.fill(alpha, 1);
+		values[0] = alpha[1];
+		for (int alphaN = nStar, t = 1; alphaN > 2; alphaN -= 2, ++t) {
+			final long[] bravo = new long[alphaN - 2];
+			long cum = 0;
+			for (int i = 0; i < bravo.length; ++i) {
+				cum = (cum + alpha[i]) % modulo;
+				bravo[i] = (alpha[i + 2] * (i + 2) + cum) % modulo;
+			}
+			alpha = bravo;
+			values[t] = alpha[1];
+		}
+		return values;
+	}
+
+	@Test
+	void matchesTheDp() {
+		final long[] dpValues = getDpValues(_NStar);
+		assertArrayEquals(dpValues, FeynmanSeries.feynmanFs(_NStar));
+		assertEquals(Euler0781.feynmanF(_NStar), dpValues[dpValues.length - 1]);
+	}
+
+	/** Sizes on either side of a power of 2, where the divide and conquer's blocks change shape. */
+	@Test
+	void lengthsNearPowersOf2() {
+		final long[] dpValues = getDpValues(2 * 1025);
+		for (int power = 1; power <= 1024; power <<= 1) {
+			for (final int n : new int[] {
+					power - 1, power, power + 1
+			}) {
+				if (n >= 1) {
+					assertArrayEquals(Arrays.copyOf(dpValues, n), FeynmanSeries.feynmanFs(2 * n), "nTerms " + n);
+				}
+			}
+		}
+	}
+
+	/** Serial and parallel, under every ModArith backend. */
+	@Test
+	void everyBackend() {
+		final long[] dpValues = getDpValues(4000);
+		for (final String name : ModArith._Names) {
+			for (final boolean parallel : new boolean[] {
+					false, true
+			}) {
+				assertArrayEquals(dpValues,
+						FeynmanSeries.feynmanFs(4000, ModArith.create(name, Euler0781._Modulo), parallel),
+						name + (parallel ? " parallel" : " serial"));
+			}
+		}
+	}
+
+	@Test
+	void rejectsOddAndSmallNStar() {
+		for (final int nStar : new int[] {
+				-2, 0, 1, 3, 20001
+		}) {
+			assertThrows(IllegalArgumentException.class, () -> FeynmanSeries.feynmanFs(nStar));
+		}
+	}
+}
@@ -0,0 +1,241 @@
+package com.skagit.euler.poly;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.skagit.euler.util.ModArith;
+
+/**
+ * PolyMod's series operations against schoolbook results with plain %, under
+ * every ModArith backend, serial and parallel.
+ */
+class PolyModTest {
+	/** Euler0781's, and one of PolyMod's own NTT primes. */
+	final static long[] _Moduli = {
+			1000000007L, 998244353L
+	};
+	/** On either side of _NaiveLen, and past Ntt._ParallelLen once multiplied. */
+	final static int[] _Lens = {
+			1, 2, 3, 63, 64, 65, 1000, 2049, 9000
+	};
+	/** log and exp are built from multiply and inverse, which _Lens already takes past _ParallelLen. */
+	final static int[] _LogExpLens = {
+			1, 2, 3, 63, 64, 65, 1000, 2049
+	};
+
+	static List<PolyMod> getPolyMods(final long modulo) {
+		final List<PolyMod> polyMods = new ArrayList<>();
+		for (final String name : ModArith._Names) {
+			for (final boolean parallel : new boolean[] {
+					false, true
+			}) {
+				polyMods.add(new PolyMod(ModArith.create(name, modulo), parallel));
+			}
+		}
+		return polyMods;
+	}
+
+	static String getName(final PolyMod polyMod) {
+		return polyMod.getModArith().getName() + " " + polyMod.getModulo() + (polyMod._parallel ? " parallel" : " serial");
+	}
+
+	static long[] getRandom(final Random random, final int len, final long modulo) {
+		final long[] a = new long[len];
+		for (int k = 0; k < len; ++k) {
+			a[k] = Math.floorMod(random.nextLong(), modulo);
+		}
+		return a;
+	}
+
+	static long[] toForm(final ModArith mod, final long[] a) {
+		final long[] forms = new long[a.length];
+		for (int k = 0; k < a.length; ++k) {
+			forms[k] = mod.toForm(a[k]);
+		}
+		return forms;
+	}
+
+	static long[] fromForm(final ModArith mod, final long[] forms) {
+		final long[] a = new long[forms.length];
+		for (int k = 0; k < forms.length; ++k) {
+			a[k] = mod.fromForm(forms[k]);
+		}
+		return a;
+	}
+
+	/** The first n coefficients of a * b, with plain %. */
+	static long[] multiplyNaive(final long[] a, final long[] b, final int n, final long modulo) {
+		final long[] c = new long[n];
+		for (int i = 0; i < a.length && i < n; ++i) {
+			for (int j = 0; j < b.length && i + j < n; ++j) {
+				c[i + j] = (c[i + j] + a[i] * b[j]) % modulo;
+			}
+		}
+		return c;
+	}
+
+	static long inverseNaive(final long a, final long modulo) {
+		long result = 1, base = a % modulo;
+		for (long e = modulo - 2; e > 0; e >>= 1, base = base * base % modulo) {
+			if ((e & 1) != 0) {
+				result = result * base % modulo;
+			}
+		}
+		return result;
+	}
+
+	@Test
+	void multiply() {
+		final Random random = new Random(781);
+		for (final long modulo : _Moduli) {
+			for (final PolyMod polyMod : getPolyMods(modulo)) {
+				final ModArith mod = polyMod.getModArith();
+				for (final int[] lens : new int[][] {
+						{
+								1, 1
+						}, {
+								64, 65
+						}, {
+								65, 65
+						}, {
+								1000, 999
+						}, {
+								9000, 100
+						}
+				}) {
+					final long[] a = getRandom(random, lens[0], modulo);
+					final long[] b = getRandom(random, lens[1], modulo);
+					final long[] aForm = toForm(mod, a), bForm = toForm(mod, b);
+					final int fullLen = lens[0] + lens[1] - 1;
+					for (final int n : new int[] {
+							1, fullLen / 2 + 1, fullLen, fullLen + 3
+					}) {
+						assertArrayEquals(multiplyNaive(a, b, n, modulo), fromForm(mod, polyMod.multiply(aForm, bForm, n)),
+								getName(polyMod) + " lens " + lens[0] + "," + lens[1] + " n " + n);
+					}
+				}
+				/** A square is transformed once. */
+				for (final int len : new int[] {
+						65, 4500
+				}) {
+					final long[] a = getRandom(random, len, modulo);
+					final long[] aForm = toForm(mod, a);
+					assertArrayEquals(multiplyNaive(a, a, 2 * len - 1, modulo),
+							fromForm(mod, polyMod.multiply(aForm, aForm, 2 * len - 1)), getName(polyMod) + " square " + len);
+				}
+			}
+		}
+	}
+
+	@Test
+	void inverse() {
+		final Random random = new Random(782);
+		for (final long modulo : _Moduli) {
+			for (final PolyMod polyMod : getPolyMods(modulo)) {
+				final ModArith mod = polyMod.getModArith();
+				for (final int n : _Lens) {
+					final long[] a = getRandom(random, n, modulo);
+					a[0] = 1 + Math.floorMod(random.nextLong(), modulo - 1);
+					final long[] expected = new long[n];
+					expected[0] = 1;
+					/** Checked against 1 with the naive product, so that multiply's own errors cannot cancel. */
+					final long[] inverse = fromForm(mod, polyMod.inverse(toForm(mod, a), n));
+					assertArrayEquals(expected, multiplyNaive(a, inverse, n, modulo), getName(polyMod) + " n " + n);
+				}
+			}
+		}
+	}
+
+	@Test
+	void derivativeAndIntegral() {
+		final Random random = new Random(783);
+		for (final long modulo : _Moduli) {
+			for (final PolyMod polyMod : getPolyMods(modulo)) {
+				final ModArith mod = polyMod.getModArith();
+				final long[] a = getRandom(random, 100, modulo);
+				final long[] aForm = toForm(mod, a);
+				for (final int n : new int[] {
+						1, 50, 99, 100, 102
+				}) {
+					final long[] derivative = new long[n];
+					for (int k = 0; k < n && k + 1 < a.length; ++k) {
+						derivative[k] = a[k + 1] * (k + 1) % modulo;
+					}
+					assertArrayEquals(derivative, fromForm(mod, polyMod.derivative(aForm, n)), getName(polyMod) + " n " + n);
+					final long[] integral = new long[n];
+					for (int k = 1; k < n && k - 1 < a.length; ++k) {
+						integral[k] = a[k - 1] * inverseNaive(k, modulo) % modulo;
+					}
+					assertArrayEquals(integral, fromForm(mod, polyMod.integral(aForm, n)), getName(polyMod) + " n " + n);
+				}
+			}
+		}
+	}
+
+	/** exp(x) = sum x^k / k! and log(1 / (1 - x)) = sum x^k / k, both against plain %. */
+	@Test
+	void knownSeries() {
+		for (final long modulo : _Moduli) {
+			for (final PolyMod polyMod : getPolyMods(modulo)) {
+				final ModArith mod = polyMod.getModArith();
+				for (final int n : _LogExpLens) {
+					final long[] expExpected = new long[n], logExpected = new long[n];
+					long factorial = 1;
+					for (int k = 0; k < n; ++k) {
+						factorial = k == 0 ? 1 : factorial * k % modulo;
+						expExpected[k] = inverseNaive(factorial, modulo);
+						logExpected[k] = k == 0 ? 0 : inverseNaive(k, modulo);
+					}
+					final long[] x = toForm(mod, new long[] {
+							0, 1
+					});
+					assertArrayEquals(expExpected, fromForm(mod, polyMod.exp(x, n)), getName(polyMod) + " exp n " + n);
+					final long[] ones = new long[n];
+					for (int k = 0; k < n; ++k) {
+						ones[k] = mod.one();
+					}
+					assertArrayEquals(logExpected, fromForm(mod, polyMod.log(ones, n)), getName(polyMod) + " log n " + n);
+				}
+			}
+		}
+	}
+
+	@Test
+	void logAndExpRoundTrip() {
+		final Random random = new Random(784);
+		for (final long modulo : _Moduli) {
+			for (final PolyMod polyMod : getPolyMods(modulo)) {
+				final ModArith mod = polyMod.getModArith();
+				for (final int n : _LogExpLens) {
+					final long[] a = getRandom(random, n, modulo);
+					a[0] = 1;
+					assertArrayEquals(a, fromForm(mod, polyMod.exp(polyMod.log(toForm(mod, a), n), n)),
+							getName(polyMod) + " exp(log) n " + n);
+					final long[] b = getRandom(random, n, modulo);
+					b[0] = 0;
+					assertArrayEquals(b, fromForm(mod, polyMod.log(polyMod.exp(toForm(mod, b), n), n)),
+							getName(polyMod) + " log(exp) n " + n);
+				}
+			}
+		}
+	}
+
+	@Test
+	void inverses() {
+		for (final long modulo : _Moduli) {
+			for (final PolyMod polyMod : getPolyMods(modulo)) {
+				final ModArith mod = polyMod.getModArith();
+				final long[] inverses = fromForm(mod, polyMod.getInverses(10000));
+				for (int k = 1; k < 10000; ++k) {
+					assertEquals(1L, inverses[k] * k % modulo, getName(polyMod) + " k " + k);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,146 @@
+package com.skagit.euler.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Every backend against plain, at the edges each one's overflow argument rests
+ * on: Barrett's x < 2^63, Montgomery's t < _modulo * 2^32, and Lazy's 2^62 sum
+ * and 2^31 factor limits.
+ */
+class ModArithTest {
+	/** Euler0781's, PolyMod's three NTT primes, and the largest modulo allowed. */
+	final static long[] _Moduli = {
+			1000000007L, 998244353L, 167772161L, 469762049L, (1L << 31) - 1
+	};
+	/** mulAddSmall's k is any int >= 0. */
+	final static long[] _Smalls = {
+			0, 1, 2, 3, (1L << 31) - 2, (1L << 31) - 1
+	};
+	final static int _NChainSteps = 200000;
+
+	static long[] getResidues(final long modulo) {
+		return new long[] {
+				0, 1, 2, modulo / 2, modulo - 2, modulo - 1
+		};
+	}
+
+	/** Values in mod's form to feed it; for lazy, also the unreduced ones near its limits. */
+	static List<Long> getForms(final ModArith mod) {
+		final long modulo = mod.getModulo();
+		final List<Long> forms = new ArrayList<>();
+		for (final long r : getResidues(modulo)) {
+			forms.add(mod.toForm(r));
+		}
+		if (mod instanceof LazyModArith) {
+			for (final long x : new long[] {
+					modulo, (1L << 31) - 1, 1L << 31, (1L << 31) + 1, (1L << 62) - modulo, (1L << 62) - 1
+			}) {
+				forms.add(x);
+			}
+		}
+		return forms;
+	}
+
+	static List<ModArith> getBackends(final long modulo) {
+		final List<ModArith> backends = new ArrayList<>();
+		for (final String name : ModArith._Names) {
+			backends.add(ModArith.create(name, modulo));
+		}
+		return backends;
+	}
+
+	@Test
+	void toFormAndFromForm() {
+		for (final long modulo : _Moduli) {
+			final PlainModArith plain = new PlainModArith(modulo);
+			for (final ModArith mod : getBackends(modulo)) {
+				for (final long x : new long[] {
+						0, modulo - 1, modulo, 1L << 31, (1L << 62) - 1, 1L << 62, Long.MAX_VALUE - modulo, Long.MAX_VALUE
+				}) {
+					assertEquals(plain.toForm(x), mod.fromForm(mod.toForm(x)), () -> mod.getName() + " " + x);
+				}
+				for (final long form : getForms(mod)) {
+					assertEquals(mod.fromForm(form), mod.fromForm(mod.reduce(form)), () -> mod.getName() + " " + form);
+					assertEquals(mod.fromForm(form), mod.reduce(mod.fromForm(form)), () -> mod.getName() + " " + form);
+				}
+			}
+		}
+	}
+
+	@Test
+	void operationsAtTheEdges() {
+		for (final long modulo : _Moduli) {
+			final PlainModArith plain = new PlainModArith(modulo);
+			for (final ModArith mod : getBackends(modulo)) {
+				final List<Long> forms = getForms(mod);
+				for (final long a : forms) {
+					final long pa = mod.fromForm(a);
+					for (final long b : forms) {
+						final long pb = mod.fromForm(b);
+						final String what = String.format("%s modulo[%d] a[%d] b[%d]", mod.getName(), modulo, a, b);
+						assertEquals(plain.add(pa, pb), mod.fromForm(mod.add(a, b)), "add " + what);
+						assertEquals(plain.sub(pa, pb), mod.fromForm(mod.sub(a, b)), "sub " + what);
+						assertEquals(plain.mul(pa, pb), mod.fromForm(mod.mul(a, b)), "mul " + what);
+						for (final long c : forms) {
+							final long pc = mod.fromForm(c);
+							assertEquals(plain.mulAdd(pa, pb, pc), mod.fromForm(mod.mulAdd(a, b, c)), "mulAdd " + what);
+						}
+					}
+					for (final long k : _Smalls) {
+						for (final long c : forms) {
+							final long pc = mod.fromForm(c);
+							assertEquals(plain.mulAddSmall(pa, k, pc), mod.fromForm(mod.mulAddSmall(a, k, c)),
+									() -> String.format("mulAddSmall %s modulo[%d] a[%d] k[%d] c[%d]", mod.getName(),
+											modulo, a, k, c));
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/** Long runs of the largest operands, so that lazy has to cross its limits repeatedly. */
+	@Test
+	void chains() {
+		for (final long modulo : _Moduli) {
+			final PlainModArith plain = new PlainModArith(modulo);
+			final long big = modulo - 1, k = (1L << 31) - 1;
+			for (final ModArith mod : getBackends(modulo)) {
+				final long formBig = mod.toForm(big);
+				long sum = 0, mulAddSum = 0, product = mod.one(), plainSum = 0, plainMulAddSum = 0, plainProduct = 1;
+				for (int step = 0; step < _NChainSteps; ++step) {
+					sum = mod.mulAddSmall(formBig, k, sum);
+					plainSum = plain.mulAddSmall(big, k, plainSum);
+					mulAddSum = mod.mulAdd(formBig, formBig, mod.add(mulAddSum, formBig));
+					plainMulAddSum = plain.mulAdd(big, big, plain.add(plainMulAddSum, big));
+					product = mod.mul(product, mod.add(formBig, formBig));
+					plainProduct = plain.mul(plainProduct, plain.add(big, big));
+				}
+				assertEquals(plainSum, mod.fromForm(sum), mod.getName());
+				assertEquals(plainMulAddSum, mod.fromForm(mulAddSum), mod.getName());
+				assertEquals(plainProduct, mod.fromForm(product), mod.getName());
+			}
+		}
+	}
+
+	@Test
+	void powAndInverse() {
+		for (final long modulo : _Moduli) {
+			for (final ModArith mod : getBackends(modulo)) {
+				for (final long r : getResidues(modulo)) {
+					if (r == 0) {
+						continue;
+					}
+					final long form = mod.toForm(r);
+					assertEquals(1L, mod.fromForm(mod.mul(form, mod.inverse(form))), () -> mod.getName() + " " + r);
+					assertEquals(r, mod.fromForm(mod.pow(form, modulo)), () -> mod.getName() + " " + r);
+				}
+			}
+		}
+	}
+}